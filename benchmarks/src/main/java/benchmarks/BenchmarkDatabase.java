@@ -0,0 +1,62 @@
+package benchmarks;
+
+import client.entities.Animal;
+import manager.ConnectionPool;
+import manager.OrmManager;
+import manager.PoolConfig;
+import manager.RowMapperType;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Private in-memory H2 database with an {@code ANIMAL} table, shared by the benchmarks.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private final String url;
+    private final ConnectionPool pool;
+    private final OrmManager ormManager;
+
+    BenchmarkDatabase(RowMapperType rowMapperType) {
+        // Statement logging would dominate every measurement
+        Logger.getLogger(Logger.GLOBAL_LOGGER_NAME).setLevel(Level.WARNING);
+        this.url = "jdbc:h2:mem:bench" + COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        this.pool = new ConnectionPool("bench", () -> DriverManager.getConnection(url, "sa", ""),
+                new PoolConfig(1, 8, 600_000, 30_000, 0, 5));
+        this.ormManager = new OrmManager(pool, rowMapperType);
+        ormManager.prepareRepositoryFor(Animal.class);
+    }
+
+    OrmManager ormManager() {
+        return ormManager;
+    }
+
+    void seed(int rows) {
+        List<Animal> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Animal("animal " + i, i % 100));
+            if (batch.size() == 10_000) {
+                ormManager.saveAll(batch, 1_000);
+                batch.clear();
+            }
+        }
+        ormManager.saveAll(batch, 1_000);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        ormManager.close();
+        try (var connection = DriverManager.getConnection(url, "sa", "");
+             var statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        pool.close();
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import client.entities.Animal;
+import client.entities.Zoo;
+import manager.ConnectionPool;
+import manager.OrmManager;
+import manager.PoolConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL rendering in isolation; the pool never opens a connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBuilderBenchmark {
+    private ConnectionPool pool;
+    private OrmManager ormManager;
+    private Animal animal;
+    private Zoo zoo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ConnectionPool("builders", () -> {
+            throw new SQLException("Builders don't need a connection");
+        }, new PoolConfig(0, 1, 600_000, 1_000, 0, 1));
+        ormManager = new OrmManager(pool);
+        animal = new Animal(42L, "O'Brien", 7);
+        zoo = new Zoo("vul.Ceo");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public String insertCommandBuilder() {
+        return ormManager.insertCommandBuilder(animal);
+    }
+
+    @Benchmark
+    public String updateCommandBuilder() {
+        return ormManager.updateCommandBuilder(animal);
+    }
+
+    @Benchmark
+    public String updateCommandBuilderSingleColumn() {
+        return ormManager.updateCommandBuilder(zoo);
+    }
+}
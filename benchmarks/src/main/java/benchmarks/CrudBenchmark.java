@@ -0,0 +1,70 @@
+package benchmarks;
+
+import client.entities.Animal;
+import manager.OrmManager;
+import manager.RowMapperType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-row operations and batch inserts against a table of {@value #ROWS} rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrudBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int BATCH = 1_000;
+
+    private BenchmarkDatabase database;
+    private OrmManager ormManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(RowMapperType.METHOD_HANDLE);
+        database.seed(ROWS);
+        ormManager = database.ormManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public Long save() {
+        var animal = new Animal("bench", 7);
+        ormManager.save(animal);
+        return animal.getId();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int saveAll() {
+        List<Animal> animals = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            animals.add(new Animal("bench " + i, i));
+        }
+        ormManager.saveAll(animals);
+        return animals.size();
+    }
+
+    @Benchmark
+    public int update() {
+        long id = ThreadLocalRandom.current().nextLong(1, ROWS + 1);
+        return ormManager.update(new Animal(id, "updated", (int) (id % 100)));
+    }
+
+    @Benchmark
+    public Optional<Animal> getById() {
+        return ormManager.getById(Animal.class, ThreadLocalRandom.current().nextLong(1, ROWS + 1));
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import client.entities.Animal;
+import manager.OrmManager;
+import manager.RowMapperType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full table reads at different table sizes, comparing both row mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GetAllBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"METHOD_HANDLE", "REFLECTIVE"})
+    public RowMapperType rowMapper;
+
+    private BenchmarkDatabase database;
+    private OrmManager ormManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(rowMapper);
+        database.seed(rows);
+        ormManager = database.ormManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Animal> getAll() {
+        return ormManager.getAll(Animal.class);
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        try (var stream = ormManager.stream(Animal.class)) {
+            stream.forEach(blackhole::consume);
+        }
+    }
+}
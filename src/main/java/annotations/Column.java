@@ -10,4 +10,15 @@ import java.lang.annotation.Target;
 public @interface Column {
     String value() default "";
     boolean allowNull() default false;
+
+    /**
+     * Leaves the column out of entity queries; the field must be a {@code manager.Lazy<T>}
+     * and is read on first access. Meant for large text columns that are rarely needed.
+     */
+    boolean lazy() default false;
+
+    /**
+     * Number of lazy values of one query loaded together on first access.
+     */
+    int batchSize() default 1;
 }
@@ -9,4 +9,20 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Entity {
     String value() default "";
+
+    /**
+     * Keeps loaded rows in the shared second-level cache of the {@code OrmManager}.
+     * Meant for read-mostly reference data.
+     */
+    boolean cacheable() default false;
+
+    /**
+     * Upper bound of cached rows; the least recently used ones are evicted first.
+     */
+    int cacheMaxEntries() default 1000;
+
+    /**
+     * Time after which a cached row is reloaded, {@code 0} keeps rows until evicted.
+     */
+    long cacheTtlSeconds() default 0;
 }
@@ -0,0 +1,15 @@
+package annotations;
+
+/**
+ * When a relation is read from the database.
+ */
+public enum FetchType {
+    /**
+     * Together with the owning entity, one {@code IN (...)} query per relation.
+     */
+    EAGER,
+    /**
+     * On first access of the field, through the {@code OrmManager} that loaded the owner.
+     */
+    LAZY
+}
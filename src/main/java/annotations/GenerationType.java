@@ -0,0 +1,27 @@
+package annotations;
+
+/**
+ * How the id of a new entity is produced.
+ */
+public enum GenerationType {
+    /**
+     * By the database while inserting ({@code AUTO_INCREMENT}), read back through the generated
+     * keys of every insert.
+     */
+    IDENTITY,
+    /**
+     * From a database sequence before inserting; one sequence call reserves
+     * {@link Id#allocationSize()} ids that are handed out in memory.
+     */
+    SEQUENCE,
+    /**
+     * Time-ordered (version 7) UUID created in memory, for {@code java.util.UUID} or
+     * {@code String} ids.
+     */
+    UUID,
+    /**
+     * Time-ordered 64-bit id created in memory from the current millisecond, the
+     * {@code orm.nodeId} of this process and a counter, for {@code Long} ids.
+     */
+    SNOWFLAKE
+}
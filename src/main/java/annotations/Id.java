@@ -8,4 +8,20 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Id {
     String value() default "";
+
+    /**
+     * Ids other than {@link GenerationType#IDENTITY} are assigned before the insert, so the
+     * id column is part of it; an id that is already set is kept.
+     */
+    GenerationType strategy() default GenerationType.IDENTITY;
+
+    /**
+     * Sequence of {@link GenerationType#SEQUENCE}, {@code <table>_SEQ} by default.
+     */
+    String sequence() default "";
+
+    /**
+     * Ids reserved by one sequence call; the sequence is created with this increment.
+     */
+    int allocationSize() default 50;
 }
@@ -0,0 +1,28 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Index created together with the table. On a mapped field it covers that field's column; on
+ * the entity class it covers {@link #columns()}, in order, which makes composite indexes.
+ */
+@Target({ElementType.FIELD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(Indexes.class)
+public @interface Index {
+    /**
+     * Index name, {@code IDX_<table>_<columns>} by default.
+     */
+    String name() default "";
+
+    /**
+     * Fields or columns of a class-level index; ignored on fields.
+     */
+    String[] columns() default {};
+
+    boolean unique() default false;
+}
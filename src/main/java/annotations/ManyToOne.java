@@ -0,0 +1,29 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Reference to another entity, stored as a foreign key column holding its id.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ManyToOne {
+    /**
+     * Foreign key column, {@code <field name>_id} by default.
+     */
+    String value() default "";
+
+    /**
+     * {@link FetchType#LAZY} references must be declared as {@code manager.Lazy<Target>}.
+     */
+    FetchType fetch() default FetchType.EAGER;
+
+    /**
+     * Number of lazy values of one query loaded together on first access, {@code 1} loads
+     * only the accessed one.
+     */
+    int batchSize() default 1;
+}
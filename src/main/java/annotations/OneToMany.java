@@ -0,0 +1,26 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@code List} of child entities whose foreign key column points back at this entity.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OneToMany {
+    /**
+     * Foreign key column in the child table, usually the column of the child's {@link ManyToOne}.
+     */
+    String mappedBy();
+
+    FetchType fetch() default FetchType.EAGER;
+
+    /**
+     * Number of lazy collections of one query loaded together on first access, {@code 1} loads
+     * only the accessed one.
+     */
+    int batchSize() default 1;
+}
@@ -0,0 +1,20 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Version counter of an entity, a {@code Long} or {@code Integer} field. Every update is
+ * made conditional on the version that was read and increments it; an update that finds
+ * another version fails with {@code manager.OptimisticLockException}.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Version {
+    /**
+     * Column name, the field name by default.
+     */
+    String value() default "";
+}
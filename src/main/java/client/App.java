@@ -62,6 +62,7 @@ public class App {
         for (var i : list) {
             System.out.println(i);
         }
+        orm.close();
         logger.info("[Status] End of the program.");
     }
 }
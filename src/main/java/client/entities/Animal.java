@@ -2,7 +2,11 @@ package client.entities;
 
 import annotations.Column;
 import annotations.Entity;
+import annotations.FetchType;
 import annotations.Id;
+import annotations.Index;
+import annotations.ManyToOne;
+import manager.Lazy;
 
 @Entity("Animal")
 public class Animal {
@@ -23,13 +27,21 @@ public class Animal {
     @Id
     private Long id;
 
-//    @ManyToOne("zoo_id")
-//    Zoo zoo;
+    @ManyToOne(value = "zoo_id", fetch = FetchType.LAZY, batchSize = 50)
+    private Lazy<Zoo> zoo;
 
     public Long getId() {
         return id;
     }
 
+    public Zoo getZoo() {
+        return zoo == null ? null : zoo.get();
+    }
+
+    public void setZoo(Zoo zoo) {
+        this.zoo = Lazy.of(zoo);
+    }
+
     public String getName() {
         return name;
     }
@@ -49,6 +61,7 @@ public class Animal {
         this.age = age;
     }
 
+    @Index
     @Column(value = "Age")
     private int age;
 
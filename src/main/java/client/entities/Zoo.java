@@ -2,9 +2,14 @@ package client.entities;
 
 import annotations.Column;
 import annotations.Entity;
+import annotations.FetchType;
 import annotations.Id;
+import annotations.OneToMany;
 
-@Entity("Zoo")
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity(value = "Zoo", cacheable = true, cacheMaxEntries = 500, cacheTtlSeconds = 600)
 public class Zoo {
 
     @Id("id_zoo")
@@ -13,8 +18,8 @@ public class Zoo {
     @Column
     String address;
 
-//    @OneToMany(mappedBy = "zoo_id")
-//    List<Animal> animals = new ArrayList<>();
+    @OneToMany(mappedBy = "zoo_id", fetch = FetchType.LAZY, batchSize = 50)
+    List<Animal> animals = new ArrayList<>();
 
     public Zoo() {
     }
@@ -22,4 +27,20 @@ public class Zoo {
     public Zoo(String address) {
         this.address = address;
     }
-}
\ No newline at end of file
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public List<Animal> getAnimals() {
+        return animals;
+    }
+}
@@ -0,0 +1,174 @@
+package manager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking facade of an {@link OrmManager}: every call returns at once with a
+ * {@link CompletableFuture} and the work runs on an executor of its own.
+ * <p>
+ * The default executor starts a virtual thread per operation when the runtime has them, and
+ * otherwise runs a platform thread per pooled connection; operations beyond that wait for a
+ * connection in the pool, not in a thread. At most {@code maxPending} operations may be queued
+ * or running: further calls fail fast with {@link RejectedExecutionException}, so a caller
+ * producing work faster than the database absorbs it sees the pressure at once.
+ * <p>
+ * Cancelling a returned future cancels the statement the operation is running through
+ * {@link java.sql.Statement#cancel()}, and no further statement of that operation starts.
+ */
+public class AsyncOrmManager implements AutoCloseable {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private static final String MAX_PENDING_KEY = "orm.async.maxPending";
+    private static final int DEFAULT_MAX_PENDING = 1000;
+
+    private final OrmManager manager;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxPending;
+    private final Semaphore pending;
+
+    public AsyncOrmManager(OrmManager manager) {
+        this(manager, defaultExecutor(manager.getPool().getConfig().getMaxSize()), true,
+                PropertiesUtil.getInt(MAX_PENDING_KEY, DEFAULT_MAX_PENDING));
+    }
+
+    /**
+     * @param executor   runs the operations; it is not shut down by {@link #close()}
+     * @param maxPending operations that may be queued or running at the same time
+     */
+    public AsyncOrmManager(OrmManager manager, ExecutorService executor, int maxPending) {
+        this(manager, executor, false, maxPending);
+    }
+
+    private AsyncOrmManager(OrmManager manager, ExecutorService executor, boolean ownsExecutor, int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be positive");
+        }
+        this.manager = manager;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+    }
+
+    /**
+     * @return a virtual-thread-per-task executor if the runtime supports it, otherwise a fixed
+     * pool of {@code threads} daemon threads
+     */
+    static ExecutorService defaultExecutor(int threads) {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.FINE, "[Async] Virtual threads unavailable, using platform threads");
+        }
+        var counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            var thread = new Thread(task, "orm-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    public <T> CompletableFuture<T> save(T object) {
+        return submit(orm -> {
+            orm.save(object);
+            return object;
+        });
+    }
+
+    public <T> CompletableFuture<Void> saveAll(Collection<T> objects) {
+        return submit(orm -> {
+            orm.saveAll(objects);
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<Optional<T>> getById(Class<T> clazz, Object id) {
+        return submit(orm -> orm.getById(clazz, id));
+    }
+
+    public <T> CompletableFuture<List<T>> getAll(Class<T> clazz) {
+        return submit(orm -> orm.getAll(clazz));
+    }
+
+    public <T> CompletableFuture<Integer> update(T object) {
+        return submit(orm -> orm.update(object));
+    }
+
+    /**
+     * Runs any synchronous call, e.g. a {@link Query}, like the operations above.
+     */
+    public <R> CompletableFuture<R> submit(Function<OrmManager, R> work) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        if (!pending.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException("Too many pending operations"));
+            return future;
+        }
+        var canceller = new StatementCanceller();
+        future.whenComplete((result, failure) -> {
+            if (failure instanceof CancellationException) {
+                canceller.cancel();
+            }
+        });
+        try {
+            executor.execute(() -> run(work, future, canceller));
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Releases the permit before completing {@code future}, so a caller that sees the result
+     * can submit again right away.
+     */
+    private <R> void run(Function<OrmManager, R> work, CompletableFuture<R> future, StatementCanceller canceller) {
+        R result = null;
+        Throwable failure = null;
+        try {
+            if (!future.isDone()) {
+                canceller.bind();
+                result = work.apply(manager);
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            canceller.unbind();
+            pending.release();
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(result);
+        }
+    }
+
+    /**
+     * @return operations queued or running
+     */
+    public int getPendingOperations() {
+        return maxPending - pending.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
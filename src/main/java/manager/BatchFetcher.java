@@ -0,0 +1,126 @@
+package manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loader shared by the lazy values of one field created by one query. Accessing any of them
+ * loads it together with up to {@code batchSize - 1} other pending values in one round-trip.
+ * The pending values are claimed under a lock rather than a monitor, so the owning entities may
+ * be read from several threads; the query itself runs without it, and a thread that needs a
+ * value claimed by another one waits for that query only.
+ */
+final class BatchFetcher<T> implements Lazy.Loader<T> {
+    private final int batchSize;
+    private final KeyQuery<T> query;
+    private final Lock lock = new ReentrantLock();
+    private final Condition batchDone = lock.newCondition();
+    private final Deque<Lazy<T>> pending = new ArrayDeque<>();
+    private final Set<Lazy<T>> loading = new HashSet<>();
+
+    BatchFetcher(int batchSize, KeyQuery<T> query) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.query = query;
+    }
+
+    Lazy<T> newLazy(Object key) {
+        var lazy = Lazy.unloaded(key, this);
+        if (batchSize > 1) {
+            lock.lock();
+            try {
+                pending.add(lazy);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return lazy;
+    }
+
+    @Override
+    public void load(Lazy<T> lazy) {
+        List<Lazy<T>> batch = claim(lazy);
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<Object> keys = new LinkedHashSet<>();
+        batch.forEach(next -> keys.add(next.getKey()));
+        Map<Object, T> values = null;
+        try {
+            values = query.load(new ArrayList<>(keys));
+        } finally {
+            publish(batch, values);
+        }
+    }
+
+    /**
+     * @return {@code lazy} and up to {@code batchSize - 1} other pending values, now loading; empty
+     * if {@code lazy} was loaded meanwhile
+     */
+    private List<Lazy<T>> claim(Lazy<T> lazy) {
+        lock.lock();
+        try {
+            while (loading.contains(lazy)) {
+                batchDone.awaitUninterruptibly();
+            }
+            if (lazy.isLoaded()) {
+                return List.of();
+            }
+            List<Lazy<T>> batch = new ArrayList<>();
+            Set<Object> keys = new HashSet<>();
+            batch.add(lazy);
+            keys.add(lazy.getKey());
+            while (keys.size() < batchSize && !pending.isEmpty()) {
+                var next = pending.poll();
+                if (next != lazy && !next.isLoaded() && !loading.contains(next)) {
+                    batch.add(next);
+                    keys.add(next.getKey());
+                }
+            }
+            loading.addAll(batch);
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resolves {@code batch} from {@code values}; if the query failed ({@code values} is
+     * {@code null}) the values go back to pending, to be claimed by the next access.
+     */
+    private void publish(List<Lazy<T>> batch, Map<Object, T> values) {
+        lock.lock();
+        try {
+            for (var loaded : batch) {
+                if (values != null) {
+                    loaded.resolve(values.get(loaded.getKey()));
+                } else if (batchSize > 1) {
+                    pending.add(loaded);
+                }
+            }
+            batch.forEach(loading::remove);
+            batchDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    interface KeyQuery<T> {
+        /**
+         * @return loaded values by key; keys without a row may be missing
+         */
+        Map<Object, T> load(List<Object> keys);
+    }
+}
@@ -0,0 +1,12 @@
+package manager;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over a live database cursor. It releases the cursor and its connection once it is
+ * exhausted; callers that stop early must {@link #close()} it themselves.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+    @Override
+    void close();
+}
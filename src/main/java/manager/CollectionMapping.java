@@ -0,0 +1,69 @@
+package manager;
+
+import annotations.Entity;
+import annotations.FetchType;
+import annotations.OneToMany;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code @OneToMany} field of an entity: the children whose {@code mappedBy} column holds
+ * the owner's id. Nothing is stored in the owner's table. Lazy collections are set to a
+ * {@link LazyList} that is filled on first access.
+ */
+final class CollectionMapping {
+    private final Field field;
+    private final String mappedBy;
+    private final Class<?> elementType;
+    private final boolean lazy;
+    private final int batchSize;
+
+    CollectionMapping(Field field, String mappedBy) {
+        if (!field.getType().isAssignableFrom(ArrayList.class)
+                || !(field.getGenericType() instanceof ParameterizedType)) {
+            throw new IllegalArgumentException("@OneToMany field " + field.getName() + " must be a List of entities");
+        }
+        var argument = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        if (!(argument instanceof Class) || !((Class<?>) argument).isAnnotationPresent(Entity.class)) {
+            throw new IllegalArgumentException("@OneToMany field " + field.getName() + " must be a List of entities");
+        }
+        field.setAccessible(true);
+        this.field = field;
+        this.mappedBy = mappedBy;
+        this.elementType = (Class<?>) argument;
+        OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+        this.lazy = oneToMany.fetch() == FetchType.LAZY;
+        this.batchSize = oneToMany.batchSize();
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    String getMappedBy() {
+        return mappedBy;
+    }
+
+    boolean isLazy() {
+        return lazy;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    EntityMetadata<?> getElement() {
+        return EntityMetadata.of(elementType);
+    }
+
+    void set(Object owner, List<?> elements) {
+        try {
+            field.set(owner, elements);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't write field " + field.getName(), e);
+        }
+    }
+}
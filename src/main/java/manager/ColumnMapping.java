@@ -0,0 +1,165 @@
+package manager;
+
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Single mapped field of an entity: the column it is stored in and an accessor
+ * that was opened once when the owning {@link EntityMetadata} was built. Lazy columns are
+ * declared as {@link Lazy}; {@link #get} and {@link #set} work with the wrapped value.
+ */
+final class ColumnMapping {
+    private final Field field;
+    private final String name;
+    private final boolean id;
+    private final boolean allowNull;
+    private final boolean lazy;
+    private final int batchSize;
+    private final Class<?> type;
+    private final int sqlType;
+
+    ColumnMapping(Field field, String name, boolean id, boolean allowNull) {
+        this(field, name, id, allowNull, false, 1);
+    }
+
+    ColumnMapping(Field field, String name, boolean id, boolean allowNull, boolean lazy, int batchSize) {
+        if (lazy && field.getType() != Lazy.class) {
+            throw new IllegalArgumentException("Lazy column " + field.getName() + " must be declared as Lazy<Type>");
+        }
+        field.setAccessible(true);
+        this.field = field;
+        this.name = name;
+        this.id = id;
+        this.allowNull = allowNull;
+        this.lazy = lazy;
+        this.batchSize = batchSize;
+        this.type = lazy ? ReferenceMapping.valueType(field) : field.getType();
+        this.sqlType = sqlType(type);
+    }
+
+    private static int sqlType(Class<?> type) {
+        return switch (type.getSimpleName()) {
+            case "Long", "long" -> Types.BIGINT;
+            case "Integer", "int" -> Types.INTEGER;
+            case "String" -> Types.VARCHAR;
+            case "LocalDate" -> Types.DATE;
+            default -> Types.OTHER;
+        };
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return type of the column value, {@code T} for a {@code Lazy<T>} field
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    boolean isId() {
+        return id;
+    }
+
+    boolean isAllowNull() {
+        return allowNull;
+    }
+
+    boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * @return the field value; a lazy column is loaded first if needed
+     */
+    Object get(Object target) {
+        var value = read(target);
+        if (lazy) {
+            return value == null ? null : ((Lazy<?>) value).get();
+        }
+        return value;
+    }
+
+    /**
+     * @return number of lazy values of one query loaded together
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    Lazy<?> getLazy(Object target) {
+        return (Lazy<?>) read(target);
+    }
+
+    void setLazy(Object target, Lazy<?> value) {
+        write(target, value);
+    }
+
+    private Object read(Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't read field " + field.getName(), e);
+        }
+    }
+
+    /**
+     * Binds this column's value, read from {@code target}, to a statement parameter.
+     */
+    void bind(PreparedStatement statement, int index, Object target) throws SQLException {
+        bindValue(statement, index, get(target));
+    }
+
+    void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, sqlType);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    /**
+     * @return {@code value} as the Java type of this column, so that e.g. {@code 1} and
+     * {@code 1L} give equal identity and cache keys for a {@code Long} id
+     */
+    Object normalize(Object value) {
+        if (value instanceof Number) {
+            var number = (Number) value;
+            switch (type.getSimpleName()) {
+                case "Long", "long":
+                    return number.longValue();
+                case "Integer", "int":
+                    return number.intValue();
+                default:
+                    return value;
+            }
+        }
+        if (type == UUID.class && value instanceof String) {
+            return UUID.fromString((String) value);
+        }
+        if (type == String.class && value instanceof UUID) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    void set(Object target, Object value) {
+        write(target, lazy ? Lazy.of(value) : value);
+    }
+
+    private void write(Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't write field " + field.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package manager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opens a new physical connection for a {@link ConnectionPool}.
+ */
+@FunctionalInterface
+public interface ConnectionFactory {
+    Connection create() throws SQLException;
+}
@@ -3,6 +3,8 @@ package manager;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,18 +16,50 @@ public final class ConnectionManager {
     private static final String USERNAME_KEY = ".username";
     private static final String PASSWORD_KEY = ".password";
     private static final String URL = ".url";
+    private static final Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
 
     public static Connection open(String key) {
         try {
-            return DriverManager.getConnection(
-                    PropertiesUtil.get(key + URL),
-                    PropertiesUtil.get(key + USERNAME_KEY),
-                    PropertiesUtil.get(key + PASSWORD_KEY)
-            );
+            return connect(key);
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "[Error] " + e.getMessage());
-            System.out.println("Failed to connect to database " + e.getMessage());
+            logger.log(Level.SEVERE, () -> "[Error] " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * @return the pool shared by every caller of the database {@code key}, created on first use
+     * with the settings from {@link PoolConfig#fromProperties(String)}
+     */
+    public static ConnectionPool pool(String key) {
+        var pool = POOLS.get(key);
+        if (pool == null) {
+            pool = POOLS.computeIfAbsent(key, ConnectionManager::newPool);
+        }
+        return pool;
+    }
+
+    /**
+     * @return a new pool of the database {@code key} with the settings from
+     * {@link PoolConfig#fromProperties(String)}; closing it is up to the caller
+     */
+    public static ConnectionPool newPool(String key) {
+        return new ConnectionPool(key, () -> connect(key), PoolConfig.fromProperties(key));
+    }
+
+    /**
+     * Closes the shared pools; connections still borrowed are closed when returned.
+     */
+    public static void closePools() {
+        POOLS.values().forEach(ConnectionPool::close);
+        POOLS.clear();
+    }
+
+    private static Connection connect(String key) throws SQLException {
+        return DriverManager.getConnection(
+                PropertiesUtil.get(key + URL),
+                PropertiesUtil.get(key + USERNAME_KEY),
+                PropertiesUtil.get(key + PASSWORD_KEY)
+        );
+    }
 }
@@ -0,0 +1,221 @@
+package manager;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of JDBC connections.
+ * <ul>
+ *     <li>at most {@code maxSize} connections are open; {@link #borrow()} waits up to the
+ *     acquire timeout for one to be returned;</li>
+ *     <li>idle connections are reused most-recently-returned first and validated on borrow;</li>
+ *     <li>a background task closes connections idle longer than the idle timeout, keeps
+ *     {@code minSize} connections open and reports connections borrowed for longer than the
+ *     leak detection threshold.</li>
+ * </ul>
+ * The pool doesn't use monitors, so threads waiting for a connection never pin a carrier thread.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final PoolConfig config;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String name, ConnectionFactory factory, PoolConfig config) {
+        this.name = name;
+        this.factory = factory;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, () -> "[Pool Error] " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "orm-pool-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, Math.min(config.getIdleTimeoutMillis(), 30_000));
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lends a connection out until {@link PooledConnection#close()} is called.
+     *
+     * @throws SQLTimeoutException if no connection becomes free within the acquire timeout
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool " + name + " is closed");
+        }
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                logger.log(Level.WARNING, () -> "[Pool] Timed out waiting for a connection from " + name);
+                throw new SQLTimeoutException("Timed out after " + config.getAcquireTimeoutMillis()
+                        + " ms waiting for a connection from " + name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection from " + name, e);
+        }
+        try {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isUsable(connection)) {
+                    break;
+                }
+                discard(connection);
+            }
+            if (connection == null) {
+                connection = newConnection();
+            }
+            connection.onBorrow(config.getLeakDetectionThresholdMillis() > 0
+                    ? new Throwable("Connection borrowed here") : null);
+            borrowed.add(connection);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection connection) {
+        borrowed.remove(connection);
+        try {
+            var physical = connection.getConnection();
+            if (physical.isClosed()) {
+                discard(connection);
+            } else {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                connection.onReturn();
+                if (closed) {
+                    discard(connection);
+                } else {
+                    idle.offerFirst(connection);
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, () -> "[Pool] Dropping broken connection: " + e.getMessage());
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getBorrowedConnections() {
+        return borrowed.size();
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        if (System.currentTimeMillis() - connection.getLastUsedMillis() < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return connection.getConnection().isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection newConnection() throws SQLException {
+        var connection = new PooledConnection(this, factory.create());
+        open.incrementAndGet();
+        return connection;
+    }
+
+    private void discard(PooledConnection connection) {
+        open.decrementAndGet();
+        connection.statements().close();
+        try {
+            connection.getConnection().close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, () -> "[Pool] " + e.getMessage());
+        }
+    }
+
+    private void fillToMinimum() throws SQLException {
+        while (!closed && open.get() < config.getMinSize() && permits.tryAcquire()) {
+            try {
+                idle.offerLast(newConnection());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void houseKeep() {
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext() && open.get() > config.getMinSize()) {
+                var connection = iterator.next();
+                if (now - connection.getLastUsedMillis() > config.getIdleTimeoutMillis()
+                        && idle.removeLastOccurrence(connection)) {
+                    discard(connection);
+                }
+            }
+            long threshold = config.getLeakDetectionThresholdMillis();
+            if (threshold > 0) {
+                for (var connection : borrowed) {
+                    if (!connection.isLeakReported() && now - connection.getBorrowedAtMillis() > threshold) {
+                        connection.markLeakReported();
+                        logger.log(Level.WARNING, "[Pool] Possible connection leak in " + name
+                                + ", borrowed " + (now - connection.getBorrowedAtMillis()) + " ms ago",
+                                connection.getBorrowSite());
+                    }
+                }
+            }
+            fillToMinimum();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, () -> "[Pool] Housekeeping failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package manager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes entities as a CSV file that H2's {@code CSVREAD} reads back, one row per entity with
+ * the columns of {@link EntityMetadata#getInsertSql()}. {@code null} is an empty unquoted field
+ * and every other value is quoted, so an empty string survives the round trip.
+ */
+final class CsvFile<T> implements AutoCloseable {
+    private final EntityMetadata<T> metadata;
+    private final BufferedWriter writer;
+    private long rows;
+
+    /**
+     * Creates {@code file} and writes the header.
+     */
+    CsvFile(Path file, EntityMetadata<T> metadata) throws IOException {
+        this.metadata = metadata;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        String separator = "";
+        for (ColumnMapping column : metadata.getInsertColumns()) {
+            writer.write(separator);
+            writeValue(column.getName());
+            separator = ",";
+        }
+        for (ReferenceMapping reference : metadata.getReferences()) {
+            writer.write(separator);
+            writeValue(reference.getName());
+            separator = ",";
+        }
+        writer.newLine();
+    }
+
+    void write(T object) throws IOException {
+        metadata.initVersion(object);
+        String separator = "";
+        for (ColumnMapping column : metadata.getInsertColumns()) {
+            writer.write(separator);
+            writeValue(column.get(object));
+            separator = ",";
+        }
+        for (ReferenceMapping reference : metadata.getReferences()) {
+            writer.write(separator);
+            writeValue(reference.getTargetId(object));
+            separator = ",";
+        }
+        writer.newLine();
+        rows++;
+    }
+
+    /**
+     * @return number of rows written
+     */
+    long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        writer.write(value.toString().replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,184 @@
+package manager;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Second-level cache region of one entity class, shared by all sessions of an {@link OrmManager}.
+ * Rows are stored as {@link EntityMetadata#snapshot(Object) snapshots} and every hit is
+ * hydrated into a fresh instance, so callers never share mutable entities.
+ * <p>
+ * The region is bounded with CLOCK (second chance) eviction, an LRU approximation that keeps
+ * lookups lock-free: a hit only sets the entry's reference bit, and the eviction hand
+ * recycles referenced entries to the tail of the queue and drops the first unreferenced one.
+ * <p>
+ * Only reads fill the region; writes evict. A read takes a {@link #stamp()} before its query
+ * and its rows are dropped if anything was evicted meanwhile, so a row read before a
+ * concurrent update can't be cached after that update evicted it.
+ */
+final class EntityCache<T> {
+    private final EntityMetadata<T> metadata;
+    private final OrmMetrics metrics;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    EntityCache(EntityMetadata<T> metadata, OrmMetrics metrics) {
+        this.metadata = metadata;
+        this.metrics = metrics;
+        this.maxEntries = Math.max(1, metadata.getCacheMaxEntries());
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(metadata.getCacheTtlSeconds());
+    }
+
+    /**
+     * @return a new instance built from the cached row, or {@code null} on a miss
+     */
+    T get(Object id) {
+        var entry = entries.get(id);
+        if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.createdNanos > ttlNanos) {
+            remove(id, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            metrics.cacheAccessed(metadata.getType(), false);
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        metrics.cacheAccessed(metadata.getType(), true);
+        return metadata.hydrate(entry.state);
+    }
+
+    /**
+     * @return token to pass to {@link #put(Object, long)} for rows of a query that starts now
+     */
+    long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches {@code object}, read by a query started at {@code stamp}, unless a row was evicted
+     * since then.
+     */
+    void put(T object, long stamp) {
+        var id = metadata.getIdColumn().get(object);
+        if (id == null || invalidations.get() != stamp) {
+            return;
+        }
+        var entry = new Entry(id, metadata.snapshot(object));
+        var previous = entries.put(id, entry);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        if (invalidations.get() != stamp) {
+            remove(id, entry);
+            return;
+        }
+        enqueue(entry);
+        while (size.get() > maxEntries && evictOne()) {
+            evictions.increment();
+        }
+        if (queued.get() > 2 * maxEntries + 16) {
+            dropStaleEntries();
+        }
+    }
+
+    void evict(Object id) {
+        invalidations.incrementAndGet();
+        var entry = entries.get(id);
+        if (entry != null) {
+            remove(id, entry);
+        }
+    }
+
+    void clear() {
+        invalidations.incrementAndGet();
+        for (var id : entries.keySet()) {
+            evict(id);
+        }
+        dropStaleEntries();
+    }
+
+    CacheStatistics statistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size.get());
+    }
+
+    private boolean evictOne() {
+        Entry candidate;
+        while ((candidate = dequeue()) != null) {
+            if (entries.get(candidate.id) != candidate) {
+                continue;
+            }
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                enqueue(candidate);
+            } else {
+                return remove(candidate.id, candidate);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaced and invalidated rows stay in the clock queue until the hand reaches them;
+     * this pass drops them early so updates of a small region can't grow the queue.
+     */
+    private void dropStaleEntries() {
+        for (int i = queued.get(); i > 0; i--) {
+            var entry = dequeue();
+            if (entry == null) {
+                return;
+            }
+            if (entries.get(entry.id) == entry) {
+                enqueue(entry);
+            }
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        clock.offer(entry);
+        queued.incrementAndGet();
+    }
+
+    private Entry dequeue() {
+        var entry = clock.poll();
+        if (entry != null) {
+            queued.decrementAndGet();
+        }
+        return entry;
+    }
+
+    private boolean remove(Object id, Entry entry) {
+        if (entries.remove(id, entry)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private static final class Entry {
+        private final Object id;
+        private final Object[] state;
+        private final long createdNanos = System.nanoTime();
+        private volatile boolean referenced;
+
+        private Entry(Object id, Object[] state) {
+            this.id = id;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package manager;
+
+import java.util.Objects;
+
+/**
+ * Identity of a persistent instance: its entity class and primary key.
+ */
+final class EntityKey {
+    private final Class<?> type;
+    private final Object id;
+
+    EntityKey(Class<?> type, Object id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    static <T> EntityKey of(EntityMetadata<T> metadata, T object) {
+        return new EntityKey(metadata.getType(), metadata.getIdColumn().get(object));
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    Object getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntityKey)) {
+            return false;
+        }
+        EntityKey other = (EntityKey) o;
+        return type == other.type && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "#" + id;
+    }
+}
@@ -0,0 +1,751 @@
+package manager;
+
+import annotations.Column;
+import annotations.Entity;
+import annotations.GenerationType;
+import annotations.Id;
+import annotations.Index;
+import annotations.ManyToOne;
+import annotations.OneToMany;
+import annotations.Version;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mapping of an entity class to its table, built once per class and shared by every
+ * {@link OrmManager}. Instances are effectively immutable and safe to use from any thread.
+ */
+final class EntityMetadata<T> {
+    private static final Map<Class<?>, EntityMetadata<?>> REGISTRY = new ConcurrentHashMap<>();
+    private static final int MAX_QUERY_PLANS = 256;
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final Class<T> type;
+    private final String tableName;
+    private final Constructor<T> constructor;
+    private final ColumnMapping idColumn;
+    private final GenerationType idStrategy;
+    private final String sequenceName;
+    private final int allocationSize;
+    private final ColumnMapping versionColumn;
+    private final String updateCondition;
+    private final List<ColumnMapping> columns;
+    private final List<ColumnMapping> insertColumns;
+    private final List<ColumnMapping> mappedColumns;
+    private final List<ColumnMapping> lazyColumns;
+    private final Map<String, ColumnMapping> byName;
+    private final List<ReferenceMapping> references;
+    private final Map<String, ReferenceMapping> referencesByName;
+    private final List<CollectionMapping> collections;
+    private final Map<String, String> queryColumns;
+    private final List<IndexMapping> indexes;
+    private final Map<String, QueryPlan> queryPlans = new ConcurrentHashMap<>();
+    private final Map<BitSet, String> partialUpdates = new ConcurrentHashMap<>();
+    private final String insertSql;
+    private final String csvInsertPrefix;
+    private final String updateSql;
+    private final String selectAllSql;
+    private final String selectByIdSql;
+    private final String deleteByIdSql;
+    private final boolean cacheable;
+    private final int cacheMaxEntries;
+    private final long cacheTtlSeconds;
+    private volatile MethodHandleRowMapper<T> methodHandleMapper;
+
+    private EntityMetadata(Class<T> type) {
+        Entity entity = type.getAnnotation(Entity.class);
+        this.type = type;
+        this.tableName = (entity.value().isEmpty() ? type.getSimpleName() : entity.value()).toUpperCase();
+        this.constructor = findConstructor(type);
+        this.cacheable = entity.cacheable();
+        this.cacheMaxEntries = entity.cacheMaxEntries();
+        this.cacheTtlSeconds = entity.cacheTtlSeconds();
+
+        ColumnMapping id = null;
+        Id idAnnotation = null;
+        ColumnMapping version = null;
+        List<ColumnMapping> plain = new ArrayList<>();
+        List<ColumnMapping> all = new ArrayList<>();
+        List<ColumnMapping> deferred = new ArrayList<>();
+        List<ReferenceMapping> manyToOne = new ArrayList<>();
+        List<CollectionMapping> oneToMany = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            ColumnMapping mapping = null;
+            if (field.isAnnotationPresent(Id.class)) {
+                idAnnotation = field.getAnnotation(Id.class);
+                mapping = new ColumnMapping(field, columnName(field, idAnnotation.value()), true, false);
+                id = mapping;
+            } else if (field.isAnnotationPresent(Version.class)) {
+                mapping = new ColumnMapping(field, columnName(field, field.getAnnotation(Version.class).value()), false, false);
+                version = mapping;
+            } else if (field.isAnnotationPresent(Column.class)) {
+                Column column = field.getAnnotation(Column.class);
+                mapping = new ColumnMapping(field, columnName(field, column.value()), false, column.allowNull(),
+                        column.lazy(), column.batchSize());
+                plain.add(mapping);
+                if (column.lazy()) {
+                    deferred.add(mapping);
+                    mapping = null;
+                }
+            } else if (field.isAnnotationPresent(ManyToOne.class)) {
+                String name = field.getAnnotation(ManyToOne.class).value();
+                manyToOne.add(new ReferenceMapping(field, columnName(field, name.isEmpty() ? field.getName() + "_id" : name)));
+            } else if (field.isAnnotationPresent(OneToMany.class)) {
+                oneToMany.add(new CollectionMapping(field, field.getAnnotation(OneToMany.class).mappedBy().toUpperCase()));
+            }
+            if (mapping != null) {
+                all.add(mapping);
+            }
+        }
+        this.idColumn = id;
+        this.idStrategy = idAnnotation == null ? GenerationType.IDENTITY : idAnnotation.strategy();
+        this.sequenceName = idAnnotation == null || idAnnotation.sequence().isEmpty()
+                ? tableName + "_SEQ" : idAnnotation.sequence().toUpperCase();
+        this.allocationSize = idAnnotation == null ? 1 : idAnnotation.allocationSize();
+        if (id != null) {
+            checkIdStrategy(id);
+        }
+        this.versionColumn = version;
+        if (version != null && !List.of("Long", "long", "Integer", "int").contains(version.getType().getSimpleName())) {
+            logger.log(Level.SEVERE, () -> "[Entity Error] Version field of " + type.getSimpleName() + " must be a Long or Integer");
+            throw new IllegalArgumentException("Version field of " + type.getSimpleName() + " must be a Long or Integer");
+        }
+        this.columns = List.copyOf(plain);
+        List<ColumnMapping> inserted = new ArrayList<>();
+        if (idStrategy != GenerationType.IDENTITY) {
+            inserted.add(id);
+        }
+        inserted.addAll(plain);
+        if (version != null) {
+            inserted.add(version);
+        }
+        this.insertColumns = List.copyOf(inserted);
+        this.mappedColumns = List.copyOf(all);
+        this.lazyColumns = List.copyOf(deferred);
+        Map<String, ColumnMapping> names = new HashMap<>();
+        for (ColumnMapping mapping : all) {
+            names.put(mapping.getName(), mapping);
+        }
+        this.byName = Map.copyOf(names);
+        this.references = List.copyOf(manyToOne);
+        Map<String, ReferenceMapping> referenceNames = new HashMap<>();
+        for (ReferenceMapping reference : manyToOne) {
+            referenceNames.put(reference.getName(), reference);
+        }
+        this.referencesByName = Map.copyOf(referenceNames);
+        this.collections = List.copyOf(oneToMany);
+        Map<String, String> queryNames = new HashMap<>();
+        List<ColumnMapping> queryable = new ArrayList<>(plain);
+        if (id != null) {
+            queryable.add(id);
+        }
+        if (version != null) {
+            queryable.add(version);
+        }
+        for (ColumnMapping column : queryable) {
+            queryNames.put(column.getName(), column.getName());
+            queryNames.put(column.getField().getName().toUpperCase(), column.getName());
+        }
+        for (ReferenceMapping reference : manyToOne) {
+            queryNames.put(reference.getName(), reference.getName());
+            queryNames.put(reference.getField().getName().toUpperCase(), reference.getName());
+        }
+        this.queryColumns = Map.copyOf(queryNames);
+        List<IndexMapping> declared = new ArrayList<>();
+        for (Index index : type.getAnnotationsByType(Index.class)) {
+            if (index.columns().length == 0) {
+                throw new IllegalArgumentException("Index of " + type.getSimpleName() + " declares no columns");
+            }
+            List<String> indexed = new ArrayList<>();
+            for (String column : index.columns()) {
+                indexed.add(indexColumn(column));
+            }
+            declared.add(indexMapping(index, indexed));
+        }
+        for (Field field : type.getDeclaredFields()) {
+            for (Index index : field.getAnnotationsByType(Index.class)) {
+                declared.add(indexMapping(index, List.of(indexColumn(field.getName()))));
+            }
+        }
+        this.indexes = List.copyOf(declared);
+
+        StringJoiner insertColumns = new StringJoiner(",", "INSERT INTO " + tableName + "(", ")");
+        StringJoiner insertValues = new StringJoiner(",", " VALUES (", ")");
+        StringJoiner assignments = new StringJoiner(",", "UPDATE " + tableName + " SET ", "");
+        for (ColumnMapping column : this.insertColumns) {
+            insertColumns.add(column.getName());
+            insertValues.add("?");
+        }
+        for (ColumnMapping column : columns) {
+            assignments.add(column.getName() + "=?");
+        }
+        for (ReferenceMapping reference : manyToOne) {
+            insertColumns.add(reference.getName());
+            insertValues.add("?");
+            assignments.add(reference.getName() + "=?");
+        }
+        this.insertSql = insertColumns + insertValues.toString();
+        this.csvInsertPrefix = insertColumns + " SELECT * FROM CSVREAD(";
+        if (deferred.isEmpty()) {
+            this.selectAllSql = "SELECT * FROM " + tableName;
+        } else {
+            StringJoiner selected = new StringJoiner(",", "SELECT ", " FROM " + tableName);
+            all.forEach(column -> selected.add(column.getName()));
+            manyToOne.forEach(reference -> selected.add(reference.getName()));
+            this.selectAllSql = selected.toString();
+        }
+        if (id != null) {
+            this.updateCondition = version == null ? " WHERE " + id.getName() + "=?"
+                    : "," + version.getName() + "=" + version.getName() + "+1 WHERE " + id.getName() + "=? AND "
+                    + version.getName() + "=?";
+            this.updateSql = assignments + updateCondition;
+            this.selectByIdSql = selectAllSql + " WHERE " + id.getName() + "=?";
+            this.deleteByIdSql = "DELETE FROM " + tableName + " WHERE " + id.getName() + "=?";
+        } else {
+            this.updateCondition = null;
+            this.updateSql = null;
+            this.selectByIdSql = null;
+            this.deleteByIdSql = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> EntityMetadata<T> of(Class<T> clazz) {
+        var metadata = REGISTRY.get(clazz);
+        if (metadata == null) {
+            if (!clazz.isAnnotationPresent(Entity.class)) {
+                logger.log(Level.SEVERE, "[Error] " + " Obtained class without entity annotation!");
+                throw new IllegalArgumentException("Obtained class without entity annotation!");
+            }
+            metadata = REGISTRY.computeIfAbsent(clazz, EntityMetadata::new);
+        }
+        return (EntityMetadata<T>) metadata;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> EntityMetadata<T> of(T object) {
+        return of((Class<T>) object.getClass());
+    }
+
+    private static String columnName(Field field, String value) {
+        return (value.isEmpty() ? field.getName() : value).toUpperCase();
+    }
+
+    private static <T> Constructor<T> findConstructor(Class<T> type) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return the {@code @Id} mapping; fails if the entity doesn't declare one
+     */
+    ColumnMapping getIdColumn() {
+        if (idColumn == null) {
+            logger.log(Level.SEVERE, "[Error] " + "Id annotated field wasn't found.");
+            throw new RuntimeException("Id annotated field wasn't found.");
+        }
+        return idColumn;
+    }
+
+    boolean hasIdColumn() {
+        return idColumn != null;
+    }
+
+    /**
+     * @return indexes declared with {@code @Index}, class-level ones first
+     */
+    List<IndexMapping> getIndexes() {
+        return indexes;
+    }
+
+    private String indexColumn(String name) {
+        var column = queryColumns.get(name.toUpperCase());
+        if (column == null) {
+            logger.log(Level.SEVERE, () -> "[Entity Error] Unknown index column " + name + " of " + type.getSimpleName());
+            throw new IllegalArgumentException("Unknown index column " + name + " of " + type.getSimpleName());
+        }
+        return column;
+    }
+
+    private IndexMapping indexMapping(Index index, List<String> columns) {
+        String name = index.name().isEmpty() ? "IDX_" + tableName + "_" + String.join("_", columns) : index.name().toUpperCase();
+        return new IndexMapping(name, columns, index.unique());
+    }
+
+    GenerationType getIdStrategy() {
+        return idStrategy;
+    }
+
+    /**
+     * @return whether the database assigns the id while inserting, see {@link GenerationType#IDENTITY}
+     */
+    boolean isIdGeneratedByDatabase() {
+        return idStrategy == GenerationType.IDENTITY;
+    }
+
+    String getSequenceName() {
+        return sequenceName;
+    }
+
+    int getAllocationSize() {
+        return allocationSize;
+    }
+
+    private void checkIdStrategy(ColumnMapping id) {
+        String typeName = id.getType().getSimpleName();
+        boolean supported = switch (idStrategy) {
+            case IDENTITY -> true;
+            case SEQUENCE -> List.of("Long", "long", "Integer", "int").contains(typeName);
+            case SNOWFLAKE -> typeName.equals("Long") || typeName.equals("long");
+            case UUID -> id.getType() == java.util.UUID.class || id.getType() == String.class;
+        };
+        if (!supported) {
+            logger.log(Level.SEVERE, () -> "[Entity Error] " + idStrategy + " ids can't be of type " + typeName);
+            throw new IllegalArgumentException(idStrategy + " ids can't be of type " + typeName);
+        }
+        if (allocationSize < 1) {
+            throw new IllegalArgumentException("Allocation size must be positive");
+        }
+    }
+
+    /**
+     * @return {@code @Column} mappings in declaration order, without the id, lazy ones included
+     */
+    List<ColumnMapping> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return id and {@code @Column} mappings in declaration order, without the lazy ones;
+     * these are the columns read by the row mappers
+     */
+    List<ColumnMapping> getMappedColumns() {
+        return mappedColumns;
+    }
+
+    /**
+     * @return {@code @Column(lazy = true)} mappings, left out of {@link #getSelectAllSql()}
+     */
+    List<ColumnMapping> getLazyColumns() {
+        return lazyColumns;
+    }
+
+    Optional<ColumnMapping> findColumn(String name) {
+        return Optional.ofNullable(byName.get(name.toUpperCase()));
+    }
+
+    /**
+     * @return {@link #getColumns()}, preceded by the id unless the database generates it; these
+     * are the columns of {@link #getInsertSql()} before the references
+     */
+    List<ColumnMapping> getInsertColumns() {
+        return insertColumns;
+    }
+
+    /**
+     * @return {@code @ManyToOne} mappings in declaration order; their columns follow
+     * {@link #getColumns()} in the insert and update statements
+     */
+    List<ReferenceMapping> getReferences() {
+        return references;
+    }
+
+    Optional<ReferenceMapping> findReference(String name) {
+        return Optional.ofNullable(referencesByName.get(name.toUpperCase()));
+    }
+
+    /**
+     * @return column of the field or column {@code name}, case-insensitive; id, lazy and
+     * foreign key columns included
+     */
+    Optional<String> findQueryColumn(String name) {
+        return Optional.ofNullable(queryColumns.get(name.toUpperCase()));
+    }
+
+    /**
+     * @return binder of query parameters compared with {@code column}, one of
+     * {@link #findQueryColumn}; entities given for a foreign key are bound by their id
+     */
+    QueryPlan.ValueBinder getValueBinder(String column) {
+        if (idColumn != null && idColumn.getName().equals(column)) {
+            return idColumn::bindValue;
+        }
+        if (versionColumn != null && versionColumn.getName().equals(column)) {
+            return versionColumn::bindValue;
+        }
+        for (ColumnMapping mapping : columns) {
+            if (mapping.getName().equals(column)) {
+                return mapping::bindValue;
+            }
+        }
+        var reference = referencesByName.get(column);
+        return (statement, index, value) -> {
+            var target = reference.getTarget();
+            if (target.getType().isInstance(value)) {
+                value = target.getIdColumn().get(value);
+            }
+            target.getIdColumn().bindValue(statement, index, value);
+        };
+    }
+
+    /**
+     * @return the plan cached for {@code shape}, compiled on first use; the number of cached
+     * shapes per entity is bounded, later ones are compiled on every call
+     */
+    QueryPlan getQueryPlan(String shape, Function<String, QueryPlan> compiler) {
+        var plan = queryPlans.get(shape);
+        if (plan == null) {
+            plan = compiler.apply(shape);
+            if (queryPlans.size() < MAX_QUERY_PLANS) {
+                queryPlans.putIfAbsent(shape, plan);
+            }
+        }
+        return plan;
+    }
+
+    int getQueryPlanCount() {
+        return queryPlans.size();
+    }
+
+    /**
+     * @return {@code @OneToMany} mappings in declaration order
+     */
+    List<CollectionMapping> getCollections() {
+        return collections;
+    }
+
+    /**
+     * @return whether mapped rows need a {@link RelationLoader}: for relations or lazy columns
+     */
+    boolean needsRelationLoader() {
+        return !references.isEmpty() || !collections.isEmpty() || !lazyColumns.isEmpty();
+    }
+
+    /**
+     * @return {@link #getSelectAllSql()} restricted to rows whose {@code column} is one of
+     * {@code count} parameters, ordered by id
+     */
+    String getSelectWhereInSql(String column, int count) {
+        StringJoiner parameters = new StringJoiner(",", selectAllSql + " WHERE " + column + " IN (", ")");
+        for (int i = 0; i < count; i++) {
+            parameters.add("?");
+        }
+        return idColumn == null ? parameters.toString() : parameters + " ORDER BY " + idColumn.getName();
+    }
+
+    /**
+     * @return id and {@code column} of the rows whose id is one of {@code count} parameters
+     */
+    String getSelectColumnSql(ColumnMapping column, int count) {
+        String id = getIdColumn().getName();
+        StringJoiner parameters = new StringJoiner(",",
+                "SELECT " + id + "," + column.getName() + " FROM " + tableName + " WHERE " + id + " IN (", ")");
+        for (int i = 0; i < count; i++) {
+            parameters.add("?");
+        }
+        return parameters.toString();
+    }
+
+    /**
+     * @return smallest and largest id of the table
+     */
+    String getIdRangeSql() {
+        String id = getIdColumn().getName();
+        return "SELECT MIN(" + id + "),MAX(" + id + ") FROM " + tableName;
+    }
+
+    /**
+     * @return {@link #getSelectAllSql()} restricted to ids between two parameters, inclusive
+     */
+    String getSelectIdRangeSql() {
+        return selectAllSql + " WHERE " + getIdColumn().getName() + " BETWEEN ? AND ?";
+    }
+
+    String getInsertSql() {
+        return insertSql;
+    }
+
+    /**
+     * @return H2 statement inserting every row of {@code file}, which holds the columns of
+     * {@link #getInsertSql()} in the same order, see {@link CsvFile}. H2 reads the file name while
+     * preparing the statement, so it is a literal rather than a parameter.
+     */
+    String getCsvInsertSql(String file) {
+        return csvInsertPrefix + "'" + file.replace("'", "''") + "', NULL, 'charset=UTF-8')";
+    }
+
+    String getUpdateSql() {
+        getIdColumn();
+        return updateSql;
+    }
+
+    String getSelectAllSql() {
+        return selectAllSql;
+    }
+
+    String getSelectByIdSql() {
+        getIdColumn();
+        return selectByIdSql;
+    }
+
+    String getDeleteByIdSql() {
+        getIdColumn();
+        return deleteByIdSql;
+    }
+
+    /**
+     * Binds the parameters of {@link #getInsertSql()} from {@code object}.
+     */
+    void bindInsert(PreparedStatement statement, T object) throws SQLException {
+        initVersion(object);
+        int index = 1;
+        for (ColumnMapping column : insertColumns) {
+            column.bind(statement, index++, object);
+        }
+        for (ReferenceMapping reference : references) {
+            reference.bind(statement, index++, object);
+        }
+    }
+
+    /**
+     * Binds the parameters of {@link #getUpdateSql()} from {@code object}.
+     */
+    void bindUpdate(PreparedStatement statement, T object) throws SQLException {
+        int index = 1;
+        for (ColumnMapping column : columns) {
+            column.bind(statement, index++, object);
+        }
+        for (ReferenceMapping reference : references) {
+            reference.bind(statement, index++, object);
+        }
+        bindUpdateCondition(statement, index, object);
+    }
+
+    /**
+     * @return values written by {@link #getUpdateSql()}: every {@code @Column} in
+     * {@link #getColumns()} order followed by the reference ids. A lazy column contributes its
+     * {@link Lazy} holder rather than the value, so capturing never loads it.
+     */
+    Object[] captureState(T object) {
+        int size = columns.size();
+        Object[] state = new Object[size + references.size()];
+        for (int i = 0; i < size; i++) {
+            var column = columns.get(i);
+            state[i] = column.isLazy() ? column.getLazy(object) : column.get(object);
+        }
+        for (int i = 0; i < references.size(); i++) {
+            state[size + i] = references.get(i).getTargetId(object);
+        }
+        return state;
+    }
+
+    /**
+     * Compares {@code object} with a {@link #captureState(Object) captured state}. A lazy column
+     * only counts as changed once a new value was assigned to it, i.e. its holder was replaced
+     * by one created with {@link Lazy#of(Object)}.
+     *
+     * @param state captured state, {@code null} to count every value as changed
+     * @return indexes of the changed values, empty if the row is unchanged
+     */
+    BitSet dirtyColumns(T object, Object[] state) {
+        int size = columns.size();
+        BitSet dirty = new BitSet(size + references.size());
+        if (state == null) {
+            dirty.set(0, size + references.size());
+            return dirty;
+        }
+        for (int i = 0; i < size; i++) {
+            var column = columns.get(i);
+            if (column.isLazy()) {
+                var holder = column.getLazy(object);
+                if (holder != state[i] && holder != null && holder.getKey() == null) {
+                    dirty.set(i);
+                }
+            } else if (!Objects.deepEquals(column.get(object), state[i])) {
+                dirty.set(i);
+            }
+        }
+        for (int i = 0; i < references.size(); i++) {
+            if (!Objects.equals(references.get(i).getTargetId(object), state[size + i])) {
+                dirty.set(size + i);
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * @return an UPDATE by id of only the {@code dirty} values, see {@link #dirtyColumns}
+     */
+    String getUpdateSql(BitSet dirty) {
+        if (dirty.cardinality() == columns.size() + references.size()) {
+            return getUpdateSql();
+        }
+        var sql = partialUpdates.get(dirty);
+        if (sql == null) {
+            StringJoiner assignments = new StringJoiner(",", "UPDATE " + tableName + " SET ", "");
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                var name = i < columns.size() ? columns.get(i).getName() : references.get(i - columns.size()).getName();
+                assignments.add(name + "=?");
+            }
+            sql = assignments + updateCondition;
+            if (partialUpdates.size() < MAX_QUERY_PLANS) {
+                partialUpdates.putIfAbsent((BitSet) dirty.clone(), sql);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Binds the parameters of {@link #getUpdateSql(BitSet)} from {@code object}.
+     */
+    void bindUpdate(PreparedStatement statement, T object, BitSet dirty) throws SQLException {
+        int index = 1;
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            if (i < columns.size()) {
+                columns.get(i).bind(statement, index++, object);
+            } else {
+                references.get(i - columns.size()).bind(statement, index++, object);
+            }
+        }
+        bindUpdateCondition(statement, index, object);
+    }
+
+    /**
+     * Binds the id and, for versioned entities, the version the update expects.
+     */
+    private void bindUpdateCondition(PreparedStatement statement, int index, T object) throws SQLException {
+        idColumn.bind(statement, index, object);
+        if (versionColumn != null) {
+            versionColumn.bind(statement, index + 1, object);
+        }
+    }
+
+    /**
+     * @return the {@code @Version} mapping, or {@code null} if the entity isn't versioned
+     */
+    ColumnMapping getVersionColumn() {
+        return versionColumn;
+    }
+
+    boolean isVersioned() {
+        return versionColumn != null;
+    }
+
+    /**
+     * Sets the version of a new {@code object} to {@code 0} unless it has one.
+     */
+    void initVersion(T object) {
+        if (versionColumn != null && versionColumn.get(object) == null) {
+            versionColumn.set(object, versionValue(0));
+        }
+    }
+
+    /**
+     * Advances the version of {@code object} after its row was updated.
+     */
+    void incrementVersion(T object) {
+        versionColumn.set(object, versionValue(((Number) versionColumn.get(object)).longValue() + 1));
+    }
+
+    private Object versionValue(long version) {
+        var versionType = versionColumn.getType();
+        return versionType == Integer.class || versionType == int.class ? (Object) Math.toIntExact(version) : (Object) version;
+    }
+
+    boolean isCacheable() {
+        return cacheable && idColumn != null;
+    }
+
+    int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    /**
+     * @return values of {@link #getMappedColumns()} read from {@code object}, followed by the
+     * ids of its {@link #getReferences()}
+     */
+    Object[] snapshot(T object) {
+        int size = mappedColumns.size();
+        Object[] state = new Object[size + references.size()];
+        for (int i = 0; i < size; i++) {
+            state[i] = mappedColumns.get(i).get(object);
+        }
+        for (int i = 0; i < references.size(); i++) {
+            state[size + i] = references.get(i).getTargetId(object);
+        }
+        return state;
+    }
+
+    /**
+     * @return a new instance populated from a {@link #snapshot(Object)}, with id-only references
+     */
+    T hydrate(Object[] state) {
+        T object = newInstance();
+        int size = mappedColumns.size();
+        for (int i = 0; i < size; i++) {
+            mappedColumns.get(i).set(object, state[i]);
+        }
+        for (int i = 0; i < references.size(); i++) {
+            references.get(i).setTargetId(object, state[size + i]);
+        }
+        return object;
+    }
+
+    /**
+     * Puts id-only instances of the referenced entities into {@code object}, read from the
+     * foreign key columns of the current row.
+     */
+    void readReferences(ResultSet resultSet, T object) throws SQLException {
+        for (ReferenceMapping reference : references) {
+            reference.setTargetId(object, reference.read(resultSet));
+        }
+    }
+
+    MethodHandleRowMapper<T> getMethodHandleMapper() {
+        var mapper = methodHandleMapper;
+        if (mapper == null) {
+            mapper = new MethodHandleRowMapper<>(this);
+            methodHandleMapper = mapper;
+        }
+        return mapper;
+    }
+
+    T newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException(type.getName() + " has no no-argument constructor");
+        }
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            logger.log(Level.SEVERE, () -> "[Error] " + e.getMessage());
+            throw new IllegalStateException("Can't instantiate " + type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package manager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Produces the ids of new entities of one class for the {@code annotations.GenerationType}
+ * strategies that assign them before the insert. Generators belong to one {@link OrmManager},
+ * since a block of sequence values is only valid for the database it was reserved from, and
+ * are safe to use from any thread.
+ */
+interface IdGenerator {
+    String NODE_ID_KEY = "orm.nodeId";
+
+    /**
+     * @param connection used when the generator needs the database, e.g. for the next sequence block
+     */
+    Object next(PooledConnection connection) throws SQLException;
+
+    static IdGenerator of(OrmManager manager, EntityMetadata<?> metadata) {
+        var idType = metadata.getIdColumn().getType();
+        return switch (metadata.getIdStrategy()) {
+            case SEQUENCE -> new Sequence(manager, metadata.getSequenceName(), metadata.getAllocationSize(), idType);
+            case UUID -> idType == String.class ? connection -> TimeOrderedUuid.next().toString() : connection -> TimeOrderedUuid.next();
+            case SNOWFLAKE -> new Snowflake(PropertiesUtil.getInt(NODE_ID_KEY, 0));
+            case IDENTITY -> throw new IllegalArgumentException("Identity ids are assigned by the database");
+        };
+    }
+
+    /**
+     * Pooled allocation: the sequence is created with an increment of the allocation size, so
+     * the value {@code v} of one call reserves {@code v .. v + allocationSize - 1}, which is safe
+     * with any number of processes sharing the sequence.
+     */
+    final class Sequence implements IdGenerator {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final OrmManager manager;
+        private final String sql;
+        private final int allocationSize;
+        private final boolean intId;
+        private long next;
+        private long limit;
+
+        Sequence(OrmManager manager, String sequence, int allocationSize, Class<?> idType) {
+            this.manager = manager;
+            this.sql = "SELECT NEXT VALUE FOR " + sequence;
+            this.allocationSize = allocationSize;
+            this.intId = idType == Integer.class || idType == int.class;
+        }
+
+        @Override
+        public Object next(PooledConnection connection) throws SQLException {
+            lock.lock();
+            try {
+                if (next == limit) {
+                    next = reserve(connection);
+                    limit = next + allocationSize;
+                }
+                long id = next++;
+                return intId ? (Object) Math.toIntExact(id) : (Object) id;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long reserve(PooledConnection connection) throws SQLException {
+            var statement = connection.statements().prepare(sql);
+            try (ResultSet resultSet = manager.executeQuery(statement, sql)) {
+                if (!resultSet.next()) {
+                    Logger.getLogger(Logger.GLOBAL_LOGGER_NAME).log(Level.SEVERE, () -> "[Error] Sequence returned no value: " + sql);
+                    throw new NoSuchElementException("Sequence returned no value");
+                }
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Version 7 UUIDs: 48 bits of Unix milliseconds followed by random bits, so ids created
+     * later sort later and inserts stay at the end of the primary key index.
+     */
+    final class TimeOrderedUuid {
+        private TimeOrderedUuid() {
+        }
+
+        static UUID next() {
+            var random = ThreadLocalRandom.current();
+            long mostSignificant = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+            long leastSignificant = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+            return new UUID(mostSignificant, leastSignificant);
+        }
+    }
+
+    /**
+     * 41 bits of milliseconds since 2020-01-01, 10 bits of node id and a 12 bit counter. The
+     * timestamp and counter are kept in one {@link AtomicLong}; a counter overflow carries into
+     * the timestamp, which then runs slightly ahead of the clock instead of repeating ids.
+     */
+    final class Snowflake implements IdGenerator {
+        private static final long EPOCH = 1_577_836_800_000L;
+        private static final int COUNTER_BITS = 12;
+        private static final int NODE_BITS = 10;
+        private final AtomicLong state = new AtomicLong();
+        private final long node;
+
+        Snowflake(int node) {
+            if (node < 0 || node >= 1 << NODE_BITS) {
+                throw new IllegalArgumentException("Node id must be between 0 and " + ((1 << NODE_BITS) - 1));
+            }
+            this.node = (long) node << COUNTER_BITS;
+        }
+
+        @Override
+        public Object next(PooledConnection connection) {
+            long now = (System.currentTimeMillis() - EPOCH) << COUNTER_BITS;
+            long current = state.updateAndGet(previous -> Math.max(now, previous + 1));
+            long timestamp = current >>> COUNTER_BITS;
+            long counter = current & ((1L << COUNTER_BITS) - 1);
+            return timestamp << (NODE_BITS + COUNTER_BITS) | node | counter;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link OrmMetrics} that keeps every number in memory: a latency histogram per operation and
+ * for connection waits, counters for mapped rows, statements, batches and cache lookups, and
+ * the most recent slow queries. Safe to share between threads and managers.
+ */
+public final class InMemoryMetrics implements OrmMetrics {
+    private static final int RECENT_SLOW_QUERIES = 20;
+
+    private final long slowQueryThresholdMillis;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+    private final LongAdder rowsMapped = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRows = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+    private final Deque<String> recentSlowQueries = new ArrayDeque<>();
+
+    public InMemoryMetrics() {
+        this(PropertiesUtil.getInt(SLOW_QUERY_KEY, 1000));
+    }
+
+    public InMemoryMetrics(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    @Override
+    public void operationCompleted(Operation operation, Class<?> entity, long elapsedNanos, boolean failed) {
+        latencies.get(operation).record(elapsedNanos);
+        if (failed) {
+            failures.get(operation).increment();
+        }
+    }
+
+    @Override
+    public void rowsMapped(Class<?> entity, int rows) {
+        rowsMapped.add(rows);
+    }
+
+    @Override
+    public void statementExecuted(String sql, long elapsedNanos) {
+        statements.increment();
+    }
+
+    @Override
+    public void batchExecuted(String sql, int size, long elapsedNanos) {
+        batches.increment();
+        batchedRows.add(size);
+    }
+
+    @Override
+    public void connectionAcquired(long waitNanos) {
+        poolWait.record(waitNanos);
+    }
+
+    @Override
+    public void cacheAccessed(Class<?> entity, boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    @Override
+    public void slowQuery(String sql, long elapsedNanos) {
+        slowQueries.increment();
+        var entry = TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms: " + sql;
+        synchronized (recentSlowQueries) {
+            if (recentSlowQueries.size() == RECENT_SLOW_QUERIES) {
+                recentSlowQueries.removeFirst();
+            }
+            recentSlowQueries.addLast(entry);
+        }
+    }
+
+    @Override
+    public long slowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    public long getCount(Operation operation) {
+        return latencies.get(operation).getCount();
+    }
+
+    public long getFailures(Operation operation) {
+        return failures.get(operation).sum();
+    }
+
+    public double getMeanMillis(Operation operation) {
+        return latencies.get(operation).getMeanMillis();
+    }
+
+    public double getMaxMillis(Operation operation) {
+        return latencies.get(operation).getMaxMillis();
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99; the result is rounded up to a power of two
+     *                 nanoseconds
+     */
+    public double getPercentileMillis(Operation operation, double quantile) {
+        return latencies.get(operation).getPercentileMillis(quantile);
+    }
+
+    public long getRowsMapped() {
+        return rowsMapped.sum();
+    }
+
+    /**
+     * @return number of statements that ran outside JDBC batches
+     */
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) batchedRows.sum() / count;
+    }
+
+    public long getConnectionsAcquired() {
+        return poolWait.getCount();
+    }
+
+    public double getPoolWaitPercentileMillis(double quantile) {
+        return poolWait.getPercentileMillis(quantile);
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public double getCacheHitRatio() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+
+    /**
+     * @return up to the last 20 slow queries, oldest first
+     */
+    public List<String> getRecentSlowQueries() {
+        synchronized (recentSlowQueries) {
+            return new ArrayList<>(recentSlowQueries);
+        }
+    }
+}
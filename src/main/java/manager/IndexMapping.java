@@ -0,0 +1,35 @@
+package manager;
+
+import java.util.List;
+
+/**
+ * Index declared by an {@code @Index} annotation, or found by {@link Schema} in the database:
+ * its name, its columns in index order and whether it is unique.
+ */
+final class IndexMapping {
+    private final String name;
+    private final List<String> columns;
+    private final boolean unique;
+
+    IndexMapping(String name, List<String> columns, boolean unique) {
+        this.name = name;
+        this.columns = List.copyOf(columns);
+        this.unique = unique;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<String> getColumns() {
+        return columns;
+    }
+
+    boolean isUnique() {
+        return unique;
+    }
+
+    String getCreateSql(String table) {
+        return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name + " ON " + table + "(" + String.join(", ", columns) + ")";
+    }
+}
@@ -0,0 +1,115 @@
+package manager;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes an {@link InMemoryMetrics} on the platform MBean server as
+ * {@code manager:type=OrmMetrics,name=<name>}, readable with JConsole or any JMX agent.
+ */
+public final class JmxMetricsExporter implements OrmMetricsMXBean {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final InMemoryMetrics metrics;
+
+    private JmxMetricsExporter(InMemoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return name of the registered MBean, for {@link #unregister(ObjectName)}
+     */
+    public static ObjectName register(String name, InMemoryMetrics metrics) {
+        try {
+            var objectName = new ObjectName("manager:type=OrmMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new JmxMetricsExporter(metrics), objectName);
+            return objectName;
+        } catch (JMException e) {
+            logger.log(Level.SEVERE, () -> "[JMX Error] " + e.getMessage());
+            throw new IllegalStateException("Can't register metrics " + name, e);
+        }
+    }
+
+    public static void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, () -> "[JMX Error] " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return byOperation(metrics::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getOperationFailures() {
+        return byOperation(metrics::getFailures);
+    }
+
+    @Override
+    public Map<String, Double> getOperationMeanMillis() {
+        return byOperation(metrics::getMeanMillis);
+    }
+
+    @Override
+    public Map<String, Double> getOperationP99Millis() {
+        return byOperation(operation -> metrics.getPercentileMillis(operation, 0.99));
+    }
+
+    @Override
+    public long getRowsMapped() {
+        return metrics.getRowsMapped();
+    }
+
+    @Override
+    public long getStatements() {
+        return metrics.getStatements();
+    }
+
+    @Override
+    public long getBatches() {
+        return metrics.getBatches();
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        return metrics.getAverageBatchSize();
+    }
+
+    @Override
+    public double getPoolWaitP99Millis() {
+        return metrics.getPoolWaitPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        return metrics.getCacheHitRatio();
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return metrics.getSlowQueryCount();
+    }
+
+    @Override
+    public List<String> getRecentSlowQueries() {
+        return metrics.getRecentSlowQueries();
+    }
+
+    private static <V> Map<String, V> byOperation(Function<OrmMetrics.Operation, V> value) {
+        Map<String, V> values = new LinkedHashMap<>();
+        for (OrmMetrics.Operation operation : OrmMetrics.Operation.values()) {
+            values.put(operation.name(), value.apply(operation));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,84 @@
+package manager;
+
+import java.util.function.Supplier;
+
+/**
+ * Lazily fetched field value: a {@code @ManyToOne(fetch = LAZY)} reference or a
+ * {@code @Column(lazy = true)}. The value is loaded on the first {@link #get()} through the
+ * {@link OrmManager} that loaded the owner, together with up to {@code batchSize} other
+ * unloaded values of the same query.
+ * <p>
+ * Entities create loaded instances with {@link #of(Object)} when their field is assigned.
+ */
+public final class Lazy<T> implements Supplier<T> {
+    private static final Loader<Object> DETACHED = lazy -> {
+        throw new IllegalStateException("Lazy value " + lazy.getKey() + " isn't attached to an OrmManager");
+    };
+
+    private final Object key;
+    private volatile Loader<T> loader;
+    private T value;
+
+    private Lazy(Object key, Loader<T> loader, T value) {
+        this.key = key;
+        this.loader = loader;
+        this.value = value;
+    }
+
+    public static <T> Lazy<T> of(T value) {
+        return new Lazy<>(null, null, value);
+    }
+
+    static <T> Lazy<T> unloaded(Object key, Loader<T> loader) {
+        return new Lazy<>(key, loader, null);
+    }
+
+    /**
+     * @return an unloaded value that fails on access until the row's relations are attached
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Lazy<T> detached(Object key) {
+        return new Lazy<>(key, (Loader<T>) DETACHED, null);
+    }
+
+    /**
+     * @return the value, loading it first if needed
+     */
+    @Override
+    public T get() {
+        var pending = loader;
+        if (pending != null) {
+            pending.load(this);
+        }
+        return value;
+    }
+
+    public boolean isLoaded() {
+        return loader == null;
+    }
+
+    /**
+     * @return id the value is loaded by, {@code null} for values created with {@link #of(Object)}
+     */
+    Object getKey() {
+        return key;
+    }
+
+    void resolve(T value) {
+        this.value = value;
+        this.loader = null;
+    }
+
+    @Override
+    public String toString() {
+        return isLoaded() ? "Lazy[" + value + "]" : "Lazy[unloaded " + key + "]";
+    }
+
+    @FunctionalInterface
+    interface Loader<T> {
+        /**
+         * Must {@link #resolve(Object) resolve} {@code lazy} or throw.
+         */
+        void load(Lazy<T> lazy);
+    }
+}
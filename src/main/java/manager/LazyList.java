@@ -0,0 +1,47 @@
+package manager;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * {@code @OneToMany} collection that reads its elements on first access.
+ */
+final class LazyList<E> extends AbstractList<E> implements RandomAccess {
+    private final Lazy<List<E>> elements;
+
+    LazyList(Lazy<List<E>> elements) {
+        this.elements = elements;
+    }
+
+    boolean isLoaded() {
+        return elements.isLoaded();
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get().get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.get().size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return elements.get().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        elements.get().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        modCount++;
+        return elements.get().remove(index);
+    }
+}
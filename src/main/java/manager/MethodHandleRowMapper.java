@@ -0,0 +1,116 @@
+package manager;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Row mapper generated once per entity class. The no-arg constructor and every field setter
+ * are bound as {@link MethodHandle}s with exact primitive signatures, so an {@code int} column
+ * goes from {@code ResultSet.getInt} into the field without boxing. Column indices are
+ * resolved once per result set shape and the bound mapper is reused for every later query
+ * returning the same columns.
+ */
+final class MethodHandleRowMapper<T> {
+    private final EntityMetadata<T> metadata;
+    private final MethodHandle constructor;
+    private final Map<ColumnMapping, ColumnBinder> binders = new HashMap<>();
+    private final Map<String, RowMapper<T>> shapes = new ConcurrentHashMap<>();
+
+    MethodHandleRowMapper(EntityMetadata<T> metadata) {
+        this.metadata = metadata;
+        try {
+            var lookup = MethodHandles.privateLookupIn(metadata.getType(), MethodHandles.lookup());
+            this.constructor = lookup.findConstructor(metadata.getType(), MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            for (var column : metadata.getMappedColumns()) {
+                binders.put(column, binder(lookup.unreflectSetter(column.getField()), column.getType()));
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Can't generate row mapper for " + metadata.getType().getName(), e);
+        }
+    }
+
+    RowMapper<T> bind(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        int count = resultSetMetaData.getColumnCount();
+        StringBuilder shape = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            shape.append(resultSetMetaData.getColumnLabel(i)).append(',');
+        }
+        var mapper = shapes.get(shape.toString());
+        if (mapper == null) {
+            List<String> labels = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                labels.add(resultSetMetaData.getColumnLabel(i));
+            }
+            mapper = shapes.computeIfAbsent(shape.toString(), key -> compile(labels));
+        }
+        return mapper;
+    }
+
+    private RowMapper<T> compile(List<String> labels) {
+        List<ColumnBinder> bound = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < labels.size(); i++) {
+            var column = metadata.findColumn(labels.get(i));
+            if (column.isPresent()) {
+                bound.add(binders.get(column.get()));
+                indices.add(i + 1);
+            }
+        }
+        ColumnBinder[] columnBinders = bound.toArray(new ColumnBinder[0]);
+        int[] columnIndices = indices.stream().mapToInt(Integer::intValue).toArray();
+        return resultSet -> {
+            try {
+                @SuppressWarnings("unchecked")
+                T object = (T) (Object) constructor.invokeExact();
+                for (int i = 0; i < columnBinders.length; i++) {
+                    columnBinders[i].bind(object, resultSet, columnIndices[i]);
+                }
+                return object;
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Can't map row to " + metadata.getType().getName(), e);
+            }
+        };
+    }
+
+    // Lambda bodies are blocks on purpose: invokeExact must see a void call site.
+    private static ColumnBinder binder(MethodHandle setter, Class<?> type) {
+        if (type == int.class) {
+            var handle = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+            return (target, resultSet, index) -> {
+                handle.invokeExact(target, resultSet.getInt(index));
+            };
+        } else if (type == long.class) {
+            var handle = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+            return (target, resultSet, index) -> {
+                handle.invokeExact(target, resultSet.getLong(index));
+            };
+        } else if (type == String.class) {
+            var handle = setter.asType(MethodType.methodType(void.class, Object.class, String.class));
+            return (target, resultSet, index) -> {
+                handle.invokeExact(target, resultSet.getString(index));
+            };
+        }
+        var handle = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (target, resultSet, index) -> {
+            handle.invokeExact(target, resultSet.getObject(index, type));
+        };
+    }
+
+    @FunctionalInterface
+    private interface ColumnBinder {
+        void bind(Object target, ResultSet resultSet, int index) throws Throwable;
+    }
+}
@@ -0,0 +1,23 @@
+package manager;
+
+/**
+ * Thrown when an update of a {@code @Version} entity finds its row changed or deleted since
+ * the version it carries was read. The entity has to be read again before it can be written.
+ */
+public class OptimisticLockException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final transient Object entity;
+
+    public OptimisticLockException(Object entity, Object id, Object version) {
+        super(entity.getClass().getSimpleName() + " with id " + id + " was changed or deleted since version "
+                + version + " was read");
+        this.entity = entity;
+    }
+
+    /**
+     * @return the stale instance whose update failed
+     */
+    public Object getEntity() {
+        return entity;
+    }
+}
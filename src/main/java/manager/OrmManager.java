@@ -1,236 +1,1038 @@
 package manager;
 
-import annotations.Column;
 import annotations.Entity;
-import annotations.Id;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
-import java.sql.Connection;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class OrmManager {
-    Connection connection;
-    private static String dbKey;
+/**
+ * Entry point of the ORM. A manager is immutable after construction and safe to share between
+ * any number of threads: every operation is a unit of work that borrows its own connection
+ * from the {@link ConnectionPool} and returns it when done, so no JDBC state is shared between
+ * callers. Waiting for a connection uses {@code java.util.concurrent} primitives rather than
+ * monitors, which keeps blocked virtual threads unpinned.
+ * <p>
+ * A manager built from a database key opens its own pool and closes it in {@link #close()}; a
+ * pool passed to a constructor stays the caller's, to be closed after the manager.
+ */
+public class OrmManager implements AutoCloseable {
     static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private static final String ROW_MAPPER_KEY = "orm.rowMapper";
+    private static final String BATCH_SIZE_KEY = "orm.batchSize";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final String FETCH_SIZE_KEY = "orm.fetchSize";
+    private static final int DEFAULT_FETCH_SIZE = 500;
+    private static final String SCHEMA_MODE_KEY = "orm.schema";
+    private static final Map<String, OrmManager> MANAGERS = new ConcurrentHashMap<>();
 
-    UnaryOperator<String> wrapInQuotes = s -> "'" + s + "'";
+    private static final UnaryOperator<String> wrapInQuotes = s -> "'" + s.replace("'", "''") + "'";
+    private final RowMapperType rowMapperType;
+    private final ConnectionPool pool;
+    private final String database;
+    private final OrmMetrics metrics;
+    private final SqlLog sqlLog = SqlLog.fromProperties();
+    private final long slowQueryNanos;
+    private final SecondLevelCache cache;
+    private final Map<Class<?>, IdGenerator> idGenerators = new ConcurrentHashMap<>();
+    private final int batchSize = PropertiesUtil.getInt(BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE);
+    private final int fetchSize = PropertiesUtil.getInt(FETCH_SIZE_KEY, DEFAULT_FETCH_SIZE);
+    private final SchemaMode schemaMode = SchemaMode.valueOf(PropertiesUtil.get(SCHEMA_MODE_KEY, SchemaMode.CREATE.name()));
 
     public OrmManager(String database) {
-        logger.log(Level.INFO,"[Status] Trying to connect to " + database);
-        connection = ConnectionManager.open(database);
+        this(database, RowMapperType.valueOf(PropertiesUtil.get(ROW_MAPPER_KEY, RowMapperType.METHOD_HANDLE.name())));
     }
 
+    public OrmManager(String database, RowMapperType rowMapperType) {
+        this(openPool(database), rowMapperType, OrmMetrics.NONE, database);
+    }
+
+    public OrmManager(ConnectionPool pool) {
+        this(pool, RowMapperType.valueOf(PropertiesUtil.get(ROW_MAPPER_KEY, RowMapperType.METHOD_HANDLE.name())));
+    }
+
+    public OrmManager(ConnectionPool pool, RowMapperType rowMapperType) {
+        this(pool, rowMapperType, OrmMetrics.NONE);
+    }
+
+    /**
+     * @param metrics receives operation latencies, pool waits, cache lookups and slow queries
+     */
+    public OrmManager(ConnectionPool pool, RowMapperType rowMapperType, OrmMetrics metrics) {
+        this(pool, rowMapperType, metrics, null);
+    }
+
+    /**
+     * @param database key of the database {@code pool} was opened for by this manager, which then
+     *                 owns it; {@code null} if the pool belongs to the caller
+     */
+    private OrmManager(ConnectionPool pool, RowMapperType rowMapperType, OrmMetrics metrics, String database) {
+        this.pool = pool;
+        this.database = database;
+        this.rowMapperType = rowMapperType;
+        this.metrics = metrics;
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(metrics.slowQueryThresholdMillis());
+        this.cache = new SecondLevelCache(metrics);
+    }
+
+    private static ConnectionPool openPool(String database) {
+        logger.log(Level.INFO, () -> "[Status] Trying to connect to " + database);
+        var pool = ConnectionManager.newPool(database);
+        try {
+            pool.borrow().close();
+            logger.log(Level.INFO, () -> "[Status] Connected to " + database);
+        } catch (SQLException e) {
+            pool.close();
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        return pool;
+    }
+
+    /**
+     * Drops the cached rows and, for a manager built from a database key, closes its pool and
+     * takes it out of {@link #get(String)}. Sessions, {@link AsyncOrmManager}s and JMX exporters
+     * built on the manager are closed by their owners beforehand.
+     */
+    @Override
+    public void close() {
+        cache.clear();
+        if (database != null) {
+            MANAGERS.remove(database, this);
+            pool.close();
+        }
+    }
+
+    /**
+     * @return the manager shared by all callers of the database {@code key}
+     */
     public static OrmManager get(String key) {
-        dbKey = key;
-        return new OrmManager(key);
+        var manager = MANAGERS.get(key);
+        if (manager == null) {
+            manager = MANAGERS.computeIfAbsent(key, OrmManager::new);
+        }
+        return manager;
     }
 
     public void prepareRepositoryFor(Class<?> table) {
-        Entity entity = table.getAnnotation(Entity.class);
-        if (entity == null) {
-            logger.log(Level.SEVERE,"[Entity Error] Obtained class without entity annotation");
-            throw new IllegalArgumentException("Obtained class without entity annotation ");
-        } else {
-            String tableName = entity.value().isEmpty() ?
-                    table.getName() : entity.value();
-            StringJoiner stringJoiner = new StringJoiner(", ", "(", ");");
-            StringBuilder createCommand = new StringBuilder().append("DROP TABLE IF EXISTS ")
-                    .append(tableName).append("; CREATE TABLE ").append(tableName);
-            String column;
-            for (Field field : table.getDeclaredFields()) {
-                column = createQuery(field);
-                if (!column.isEmpty()) {
-                    stringJoiner.add(column);
+        prepareRepositoriesFor(schemaMode, table);
+    }
+
+    /**
+     * Prepares the tables of all {@code tables} in the {@code orm.schema} mode, see
+     * {@link #prepareRepositoriesFor(SchemaMode, Class[])}.
+     */
+    public void prepareRepositoriesFor(Class<?>... tables) {
+        prepareRepositoriesFor(schemaMode, tables);
+    }
+
+    /**
+     * Prepares the tables of all {@code tables} in the given {@code mode} on one connection and
+     * in one transaction, so either every change is made or none is; note that H2 commits DDL
+     * as it runs it.
+     */
+    public void prepareRepositoriesFor(SchemaMode mode, Class<?>... tables) {
+        List<EntityMetadata<?>> entities = new ArrayList<>();
+        for (Class<?> table : tables) {
+            if (table.getAnnotation(Entity.class) == null) {
+                logger.log(Level.SEVERE,"[Entity Error] Obtained class without entity annotation");
+                throw new IllegalArgumentException("Obtained class without entity annotation ");
+            }
+            entities.add(EntityMetadata.of(table));
+        }
+        try (var pooled = borrow()) {
+            var connection = pooled.getConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                List<String> missing = new ArrayList<>();
+                for (EntityMetadata<?> metadata : entities) {
+                    if (mode == SchemaMode.CREATE) {
+                        runCommand(pooled, Schema.recreate(metadata));
+                    } else {
+                        missing.addAll(Schema.changes(connection, metadata));
+                    }
+                }
+                if (mode == SchemaMode.VALIDATE && !missing.isEmpty()) {
+                    logger.log(Level.SEVERE, () -> "[Schema Error] Schema doesn't match the mapping, missing: " + missing);
+                    throw new IllegalStateException("Schema doesn't match the mapping, missing: " + missing);
                 }
+                if (mode == SchemaMode.UPDATE) {
+                    for (String command : missing) {
+                        runCommand(pooled, command);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
             }
-            String query = createCommand.append(stringJoiner).toString();
-            runCommand(query);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
+            throw new RuntimeException(e.getMessage());
         }
-    }
-
-    private String createQuery(Field field) {
-        StringBuilder stringBuilder = new StringBuilder();
-        Annotation[] annotations = field.getDeclaredAnnotations();
-        for (Annotation annotation : annotations) {
-            if (field.isAnnotationPresent(Id.class)) {
-                stringBuilder.append(createId(field, (Id) annotation));
-            } else if (field.isAnnotationPresent(Column.class)) {
-                stringBuilder.append(createColumn(field, (Column) annotation));
+        if (mode == SchemaMode.CREATE) {
+            for (EntityMetadata<?> metadata : entities) {
+                idGenerators.remove(metadata.getType());
+                var region = cache.region(metadata);
+                if (region != null) {
+                    region.clear();
+                }
             }
         }
-        return stringBuilder.toString();
     }
 
-    private String createId(Field field, Id id) {
-        return (id.value().isEmpty() ? field.getName() : id.value()) + " "
-                + convertIntoSQL(field.getType()) + " PRIMARY KEY AUTO_INCREMENT";
+    private void runCommand(String command) {
+        try (var connection = borrow()) {
+            runCommand(connection, command);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
+        }
     }
 
-    private String createColumn(Field field, Column column) {
-        String result = (column.value().isEmpty() ?
-                field.getName() : column.value()) + " " + convertIntoSQL(field.getType());
-        if (column.allowNull()) {
-            result += " NOT NULL";
+    private void runCommand(PooledConnection connection, String command) throws SQLException {
+        try (Statement statement = connection.getConnection().createStatement()) {
+            sqlLog.executing(command);
+            long start = System.nanoTime();
+            int updated = statement.executeUpdate(command);
+            long elapsed = System.nanoTime() - start;
+            metrics.statementExecuted(command, elapsed);
+            sqlLog.executed("update", command, elapsed, updated);
         }
-        return result;
     }
 
-    private String convertIntoSQL(Class<?> clazz) {
-        return switch (clazz.getSimpleName()) {
-            case "Long", "long" -> "BIGINT";
-            case "Integer", "int" -> "INTEGER";
-            case "String" -> "varchar(250)";
-            case "LocalDate" -> "DATE";
-            default -> {
-                logger.log(Level.SEVERE,"[Entity Error] Unknown type");
-                throw new IllegalArgumentException("Unknown type");
-            }
-        };
+    /**
+     * Starts a fluent query over {@code clazz}, see {@link Query}.
+     */
+    public <T> Query<T> find(Class<T> clazz) {
+        return new Query<>(this, EntityMetadata.of(clazz));
     }
 
-    private static void runCommand(String command) {
-        try (var connection = ConnectionManager.open(dbKey); Statement statement = connection.createStatement()) {
-            logger.info("[Status] Connected to Data Base.");
-            statement.executeUpdate(command);
-            logger.log(Level.INFO, "[Executing query] " + command);
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE,"[SQL Error] " + e.getMessage());
-            System.out.println(e.getMessage());
+    /**
+     * Reads up to {@code size} rows of {@code clazz} whose id is greater than {@code afterId},
+     * ordered by id; pass {@link Page#getNextKey()} to read the next page and {@code null} for
+     * the first one.
+     */
+    public <T> Page<T> getPage(Class<T> clazz, Object afterId, int size) {
+        return find(clazz).after(afterId).page(size);
+    }
+
+    /**
+     * Opens a unit of work that keeps one connection and an identity map until it is closed.
+     */
+    public Session openSession() {
+        return new Session(this);
+    }
+
+    /**
+     * Runs {@code work} in a session with an open transaction. Its inserts, updates and deletes
+     * are written in batches when {@code work} returns and committed together; if it throws,
+     * the transaction is rolled back and the exception rethrown.
+     */
+    public void inTransaction(Consumer<Session> work) {
+        try (var session = openSession()) {
+            session.beginTransaction();
+            try {
+                work.accept(session);
+            } catch (RuntimeException | Error e) {
+                session.rollback();
+                throw e;
+            }
+            session.commit();
         }
     }
 
+    ConnectionPool getPool() {
+        return pool;
+    }
+
+    RowMapperType getRowMapperType() {
+        return rowMapperType;
+    }
+
+    SecondLevelCache getCache() {
+        return cache;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return counters of the second-level cache region of {@code clazz}; all zero if the
+     * entity isn't {@code @Entity(cacheable = true)}
+     */
+    public CacheStatistics getCacheStatistics(Class<?> clazz) {
+        var region = cache.region(EntityMetadata.of(clazz));
+        return region == null ? new CacheStatistics(0, 0, 0, 0) : region.statistics();
+    }
+
+    /**
+     * Drops every row from the second-level cache, e.g. after the tables were changed
+     * without going through this manager.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
     public <T> int update(T object) {
-        checkForEntityAnnotation(object.getClass());
-        try (Statement statement = connection.createStatement()) {
-            return statement.executeUpdate(updateCommandBuilder(object));
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE,"[SQL Error] " + e.getMessage());
-            throw new RuntimeException(e.getMessage());
+        var metadata = EntityMetadata.of(object);
+        return withConnection(connection -> update(connection, metadata, object));
+    }
+
+    <T> int update(PooledConnection connection, EntityMetadata<T> metadata, T object) throws SQLException {
+        return timed(OrmMetrics.Operation.UPDATE, metadata, () -> {
+            var statement = connection.statements().prepare(metadata.getUpdateSql());
+            metadata.bindUpdate(statement, object);
+            return afterUpdate(metadata, object, executeUpdate(statement, metadata.getUpdateSql()));
+        });
+    }
+
+    /**
+     * Writes only the {@code dirty} columns of {@code object}, see {@link EntityMetadata#dirtyColumns}.
+     */
+    <T> int update(PooledConnection connection, EntityMetadata<T> metadata, T object, BitSet dirty) throws SQLException {
+        return timed(OrmMetrics.Operation.UPDATE, metadata, () -> {
+            var sql = metadata.getUpdateSql(dirty);
+            var statement = connection.statements().prepare(sql);
+            metadata.bindUpdate(statement, object, dirty);
+            return afterUpdate(metadata, object, executeUpdate(statement, sql));
+        });
+    }
+
+    private <T> int afterUpdate(EntityMetadata<T> metadata, T object, int updated) {
+        var region = cache.region(metadata);
+        if (metadata.isVersioned()) {
+            if (updated == 0) {
+                if (region != null) {
+                    region.evict(metadata.getIdColumn().get(object));
+                }
+                throw optimisticLockFailure(metadata, object);
+            }
+            metadata.incrementVersion(object);
         }
+        if (region != null) {
+            region.evict(metadata.getIdColumn().get(object));
+        }
+        return updated;
     }
 
+    /**
+     * Renders the UPDATE for {@code object} with literal values. {@link #update(Object)} itself
+     * runs the parameterized form, so this is meant for logging and diagnostics.
+     */
     public <T> String updateCommandBuilder(T object) {
+        var metadata = EntityMetadata.of(object);
         StringBuilder builder = new StringBuilder("UPDATE ");
-        builder.append(readEntityAnnotation(object.getClass(), object.getClass().getAnnotation(Entity.class)))
-                .append(" SET ");
-        for (var field : object.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            if (field.isAnnotationPresent(Column.class)) {
-                builder.append(readAnnotationColumn(field, field.getAnnotation(Column.class))).append("=");
-                try {
-                    var o = field.get(object);
-                    if (o instanceof String) {
-                        builder.append(wrapInQuotes.apply(o.toString())).append(",");
-                    } else {
-                        builder.append(o.toString()).append(",");
-                    }
-                } catch (IllegalAccessException e) {
-                    logger.log(Level.SEVERE,"[Error] " + e.getMessage());
-                    throw new RuntimeException();
-                }
+        builder.append(metadata.getTableName()).append(" SET ");
+        for (var column : metadata.getColumns()) {
+            builder.append(column.getName()).append("=");
+            var o = column.get(object);
+            if (o instanceof String) {
+                builder.append(wrapInQuotes.apply(o.toString())).append(",");
+            } else {
+                builder.append(o.toString()).append(",");
             }
         }
+        for (var reference : metadata.getReferences()) {
+            builder.append(reference.getName()).append("=")
+                    .append(Objects.toString(reference.getTargetId(object), "NULL")).append(",");
+        }
         builder.deleteCharAt(builder.length() - 1);
-        Field primaryKey = getIdField(object);
+        var primaryKey = metadata.getIdColumn();
         builder.append(" WHERE ")
-                .append(readAnnotation(primaryKey, primaryKey.getAnnotation(Id.class)))
-                .append(" = ");
-        try {
-            var id = object.getClass().getDeclaredField(primaryKey.getName());
-            id.setAccessible(true);
-            builder.append(Objects.toString(id.get(object))).append(";");
-        } catch (Exception e) {
-            logger.log(Level.SEVERE,"[Error] " + e.getMessage());
-            throw new RuntimeException(e.getMessage());
-        }
+                .append(primaryKey.getName())
+                .append(" = ")
+                .append(Objects.toString(primaryKey.get(object))).append(";");
         return builder.toString();
     }
 
+    /**
+     * Loads every row of {@code clazz}. {@code @ManyToOne} and {@code @OneToMany} fields are
+     * loaded too, with one {@code IN (...)} query per relation and {@code orm.batchSize} keys.
+     */
     public <T> List<T> getAll(Class<T> clazz) {
-        checkForEntityAnnotation(clazz);
+        var metadata = EntityMetadata.of(clazz);
+        return withConnection(connection -> getAll(connection, metadata, null, null));
+    }
+
+    /**
+     * @param identities instances already loaded in this unit of work, or {@code null}; rows of
+     *                   known instances are not mapped again and new ones are registered
+     * @param lazyLoads  connection of the lazy loads of the unit of work, or {@code null} to
+     *                   borrow one per load
+     */
+    <T> List<T> getAll(PooledConnection connection, EntityMetadata<T> metadata, Map<EntityKey, Object> identities,
+                       RelationLoader.Connector lazyLoads) throws SQLException {
+        return timed(OrmMetrics.Operation.GET_ALL, metadata, () -> {
+            var statement = connection.statements().prepare(metadata.getSelectAllSql());
+            return readAll(connection, metadata, statement, metadata.getSelectAllSql(), identities, lazyLoads);
+        });
+    }
+
+    /**
+     * Runs {@code sql}, a bound select of whole {@code metadata} rows, and maps them like
+     * {@link #getAll(Class)}, relations included.
+     */
+    <T> List<T> readAll(PooledConnection connection, EntityMetadata<T> metadata, PreparedStatement statement,
+                        String sql, Map<EntityKey, Object> identities, RelationLoader.Connector lazyLoads)
+            throws SQLException {
         List<T> resultList = new ArrayList<>();
-        try (Statement statement = connection.createStatement()) {
-            logger.log(Level.INFO,"[Executing query] " + getAllCommandBuilder(clazz));
-            ResultSet resultSet = statement.executeQuery(getAllCommandBuilder(clazz));
+        List<T> loaded = new ArrayList<>();
+        var region = readThroughRegion(connection, metadata);
+        long stamp = region == null ? 0 : region.stamp();
+        try (ResultSet resultSet = executeQuery(statement, sql)) {
+            var mapper = rowMapperType.bind(metadata, resultSet);
+            var idColumn = identities != null && metadata.hasIdColumn() ? metadata.getIdColumn() : null;
             while (resultSet.next()) {
-                resultList.add(resultSetHandling(resultSet, clazz));
+                EntityKey key = null;
+                T known = null;
+                if (idColumn != null) {
+                    key = new EntityKey(metadata.getType(), resultSet.getObject(idColumn.getName(), idColumn.getType()));
+                    known = metadata.getType().cast(identities.get(key));
+                }
+                if (known == null) {
+                    known = mapper.mapRow(resultSet);
+                    if (key != null) {
+                        identities.put(key, known);
+                    }
+                    if (region != null) {
+                        region.put(known, stamp);
+                    }
+                    loaded.add(known);
+                }
+                resultList.add(known);
             }
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE,"[SQL Error] " + e.getMessage());
-            throw new RuntimeException(e.getMessage());
+        }
+        metrics.rowsMapped(metadata.getType(), loaded.size());
+        if (metadata.needsRelationLoader()) {
+            relations(connection, identities, lazyLoads).load(metadata, loaded);
         }
         return resultList;
     }
 
-    public <T> String getAllCommandBuilder(Class<T> clazz){
-        return  "SELECT * FROM " + readEntityAnnotation(clazz, clazz.getAnnotation(Entity.class)) + ";";
+    /**
+     * Without a unit of work, the loaded entities may be handed to other threads whose lazy
+     * loads register into the same identity map, hence the concurrent map.
+     */
+    private RelationLoader relations(PooledConnection connection, Map<EntityKey, Object> identities,
+                                     RelationLoader.Connector lazyLoads) {
+        return new RelationLoader(this, connection, identities == null ? new ConcurrentHashMap<>() : identities,
+                lazyLoads == null ? this::withConnection : lazyLoads);
+    }
+
+    /**
+     * Lazily streams every row of {@code clazz}, fetching {@code orm.fetchSize} rows per round-trip.
+     * The stream holds a connection until it is exhausted or closed, so use it in a
+     * try-with-resources block. Relations aren't loaded with the rows: eager {@code @ManyToOne}
+     * fields hold id-only references, while lazy references, collections and lazy columns load
+     * one row at a time on access.
+     */
+    public <T> Stream<T> stream(Class<T> clazz) {
+        return stream(clazz, fetchSize);
+    }
+
+    public <T> Stream<T> stream(Class<T> clazz, int fetchSize) {
+        var iterator = iterate(clazz, fetchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
     }
 
-    private <T> T resultSetHandling(ResultSet resultSet, Class<T> clazz) {
-        T object = null;
+    /**
+     * Iterates every row of {@code clazz} through a forward-only cursor; memory use doesn't
+     * depend on the table size. The iterator must be closed if it isn't read to the end.
+     */
+    public <T> CloseableIterator<T> iterate(Class<T> clazz) {
+        return iterate(clazz, fetchSize);
+    }
+
+    public <T> CloseableIterator<T> iterate(Class<T> clazz, int fetchSize) {
+        var metadata = EntityMetadata.of(clazz);
+        PooledConnection connection = null;
+        PreparedStatement statement = null;
         try {
-            object = clazz.newInstance();
-            var fields = object.getClass().getDeclaredFields();
-
-            for (var field : fields) {
-                field.setAccessible(true);
-                if (field.getType() == String.class) {
-                    field.set(object, resultSet.getString(readAnnotationColumn(field, field.getAnnotation(Column.class))));
-                } else if (field.isAnnotationPresent(Id.class) || field.getType() == Long.class) {
-                    field.set(object, Long.valueOf(resultSet.getInt(readAnnotation(field, field.getAnnotation(Id.class)))));
-                } else if (field.getType() == int.class) {
-                    field.set(object, resultSet.getInt(readAnnotationColumn(field, field.getAnnotation(Column.class))));
-                }
+            connection = borrow();
+            statement = connection.getConnection().prepareStatement(metadata.getSelectAllSql(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            ResultSet resultSet = executeQuery(statement, metadata.getSelectAllSql());
+            var mapper = rowMapperType.bind(metadata, resultSet);
+            if (metadata.needsRelationLoader()) {
+                var columns = mapper;
+                var relations = relations(null, null, null);
+                mapper = row -> {
+                    T object = columns.mapRow(row);
+                    relations.attach(metadata, List.of(object));
+                    return object;
+                };
             }
+            return new ResultSetIterator<>(connection, statement, resultSet, mapper);
         } catch (SQLException e) {
-            logger.log(Level.SEVERE,"[SQL Error] " + e.getMessage());
+            closeQuietly(statement);
+            if (connection != null) {
+                connection.close();
+            }
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
             throw new RuntimeException(e.getMessage());
-        } catch (InstantiationException | IllegalAccessException e) {
-            logger.log(Level.SEVERE,"[Error] " + e.getMessage());
-            e.printStackTrace();
         }
-        return object;
+    }
+
+    /**
+     * Reads every row of {@code clazz} on up to {@code partitions} connections at once. The id
+     * range is split into {@code partitions} equal chunks, and each chunk is streamed through a
+     * forward-only cursor on its own pooled connection by a fork-join pool with one worker per
+     * pooled connection at most. {@code action} is called concurrently from those workers and
+     * in no particular order, so it must be thread-safe. Relations are handled as by
+     * {@link #stream(Class)}, except that lazy loads triggered by {@code action} run on the
+     * chunk's connection: a pool with fewer free connections than chunks would otherwise
+     * deadlock.
+     * <p>
+     * Ids must be numeric; chunks are even in id range, not in rows, so use more partitions
+     * than cores when ids are sparse. The first exception thrown by a chunk or by
+     * {@code action} cancels the remaining chunks and is rethrown.
+     */
+    public <T> void parallelScan(Class<T> clazz, int partitions, Consumer<T> action) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be positive");
+        }
+        var metadata = EntityMetadata.of(clazz);
+        var idType = metadata.getIdColumn().getType();
+        if (idType != Long.class && idType != long.class && idType != Integer.class && idType != int.class) {
+            logger.log(Level.SEVERE,"[Error] Parallel scan needs a numeric id");
+            throw new IllegalArgumentException("Parallel scan needs a numeric id");
+        }
+        long[] range = withConnection(connection -> idRange(connection, metadata));
+        if (range == null) {
+            return;
+        }
+        long span = range[1] - range[0] + 1;
+        int chunks = (int) Math.min(partitions, span);
+        long width = span / chunks + (span % chunks == 0 ? 0 : 1);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (long from = range[0]; from <= range[1]; from += width) {
+            long first = from;
+            long last = Math.min(range[1], from + width - 1);
+            tasks.add(ForkJoinTask.adapt(() -> withConnection(connection -> scanRange(connection, metadata, first, last, action))));
+        }
+        var workers = new ForkJoinPool(Math.min(tasks.size(), pool.getConfig().getMaxSize()));
+        try {
+            workers.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        } finally {
+            workers.shutdown();
+            awaitChunks(workers);
+        }
+    }
+
+    /**
+     * A failed chunk only cancels chunks that haven't started; the running ones are waited
+     * for, so {@code action} is never called after {@link #parallelScan} returned.
+     */
+    private static void awaitChunks(ForkJoinPool workers) {
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.log(Level.WARNING,"[Scan] Waiting for running chunks to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return smallest and largest id, or {@code null} if the table is empty
+     */
+    private long[] idRange(PooledConnection connection, EntityMetadata<?> metadata) throws SQLException {
+        var sql = metadata.getIdRangeSql();
+        try (ResultSet resultSet = executeQuery(connection.statements().prepare(sql), sql)) {
+            resultSet.next();
+            long min = resultSet.getLong(1);
+            return resultSet.wasNull() ? null : new long[]{min, resultSet.getLong(2)};
+        }
+    }
+
+    private <T> Void scanRange(PooledConnection connection, EntityMetadata<T> metadata, long first, long last,
+                               Consumer<T> action) throws SQLException {
+        var sql = metadata.getSelectIdRangeSql();
+        var statement = connection.statements().prepare(sql);
+        statement.setFetchSize(fetchSize);
+        statement.setLong(1, first);
+        statement.setLong(2, last);
+        int mapped = 0;
+        var chunk = new ChunkConnector(connection);
+        try (ResultSet resultSet = executeQuery(statement, sql)) {
+            var mapper = rowMapperType.bind(metadata, resultSet);
+            var relations = metadata.needsRelationLoader() ? relations(null, null, chunk) : null;
+            while (resultSet.next()) {
+                T object = mapper.mapRow(resultSet);
+                if (relations != null) {
+                    relations.attach(metadata, List.of(object));
+                }
+                mapped++;
+                action.accept(object);
+            }
+        } finally {
+            chunk.scanning = false;
+            metrics.rowsMapped(metadata.getType(), mapped);
+        }
+        return null;
+    }
+
+    /**
+     * Runs the lazy loads of a chunk's rows on the chunk's own connection while its worker is
+     * still scanning, so that {@code action} never waits for a second connection of the pool
+     * the other chunks are holding. Loads from other threads, or after the chunk is done,
+     * borrow a connection as usual.
+     */
+    private final class ChunkConnector implements RelationLoader.Connector {
+        private final PooledConnection connection;
+        private final Thread worker = Thread.currentThread();
+        private boolean scanning = true;
+
+        ChunkConnector(PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public <R> R withConnection(SqlFunction<PooledConnection, R> work) {
+            if (Thread.currentThread() != worker || !scanning) {
+                return OrmManager.this.withConnection(work);
+            }
+            try {
+                return work.apply(connection);
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
+                throw new RuntimeException(e.getMessage());
+            }
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, () -> "[SQL Error] " + e.getMessage());
+            }
+        }
+    }
+
+    public <T> String getAllCommandBuilder(Class<T> clazz){
+        return  "SELECT * FROM " + EntityMetadata.of(clazz).getTableName() + ";";
     }
 
     public <T> void save(T object) {
-        checkForEntityAnnotation(object.getClass());
+        var metadata = EntityMetadata.of(object);
+        withConnection(connection -> {
+            save(connection, metadata, object);
+            return null;
+        });
+    }
+
+    <T> void save(PooledConnection connection, EntityMetadata<T> metadata, T object) throws SQLException {
+        timed(OrmMetrics.Operation.SAVE, metadata, () -> {
+            var primaryKey = metadata.getIdColumn();
+            if (metadata.isIdGeneratedByDatabase()) {
+                var statement = connection.statements().prepare(metadata.getInsertSql(), Statement.RETURN_GENERATED_KEYS);
+                metadata.bindInsert(statement, object);
+                executeUpdate(statement, metadata.getInsertSql());
+                primaryKey.set(object, getAutoGeneratedIdfromDB(statement));
+            } else {
+                assignId(connection, metadata, object);
+                var statement = connection.statements().prepare(metadata.getInsertSql());
+                metadata.bindInsert(statement, object);
+                executeUpdate(statement, metadata.getInsertSql());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sets a new id on {@code object} unless it already has one; only for ids that are not
+     * generated by the database.
+     */
+    private <T> void assignId(PooledConnection connection, EntityMetadata<T> metadata, T object) throws SQLException {
+        var primaryKey = metadata.getIdColumn();
+        var id = primaryKey.get(object);
+        if (id == null || primaryKey.getType().isPrimitive() && ((Number) id).longValue() == 0) {
+            var generator = idGenerators.computeIfAbsent(metadata.getType(), type -> IdGenerator.of(this, metadata));
+            primaryKey.set(object, generator.next(connection));
+        }
+    }
+
+    /**
+     * Inserts all objects through JDBC batches of {@code orm.batchSize} rows and assigns the
+     * generated ids back onto them. Each batch is committed as one transaction.
+     */
+    public <T> void saveAll(Collection<T> objects) {
+        saveAll(objects, batchSize);
+    }
+
+    public <T> void saveAll(Collection<T> objects, int batchSize) {
+        if (objects.isEmpty()) {
+            return;
+        }
+        var metadata = sameEntity(objects);
+        if (metadata.isIdGeneratedByDatabase()) {
+            runBatches(metadata.getInsertSql(), Statement.RETURN_GENERATED_KEYS, objects, batchSize,
+                    metadata::bindInsert, (statement, batch, counts) -> afterInsert(metadata, statement, batch));
+            return;
+        }
+        withConnection(connection -> {
+            for (T object : objects) {
+                assignId(connection, metadata, object);
+            }
+            return null;
+        });
+        runBatches(metadata.getInsertSql(), Statement.NO_GENERATED_KEYS, objects, batchSize,
+                metadata::bindInsert, (statement, batch, counts) -> { });
+    }
+
+    /**
+     * Inserts every entity of {@code objects} as fast as the database allows. On H2 the entities
+     * are written to a temporary CSV file in the column order of the mapping and inserted by one
+     * {@code INSERT ... SELECT * FROM CSVREAD(...)} statement, so ids generated by the database
+     * are not assigned back onto them; ids of other strategies are assigned while writing. The
+     * file is read by the database server, so it must share the file system with this process.
+     * Other databases fall back to {@link #saveAll(Collection)}.
+     *
+     * @return number of inserted rows
+     */
+    public <T> long bulkLoad(Class<T> clazz, Stream<T> objects) {
+        var metadata = EntityMetadata.of(clazz);
+        boolean h2 = withConnection(connection ->
+                "H2".equals(connection.getConnection().getMetaData().getDatabaseProductName()));
+        if (!h2) {
+            return saveInBatches(objects.iterator());
+        }
+        return withConnection(connection -> timed(OrmMetrics.Operation.SAVE, metadata,
+                () -> loadCsv(connection, metadata, objects.iterator())));
+    }
+
+    private <T> long loadCsv(PooledConnection connection, EntityMetadata<T> metadata, Iterator<T> objects)
+            throws SQLException {
+        Path file = null;
         try {
-            Field primaryKey = getIdField(object);
-            primaryKey.setAccessible(true);
-            var cmd = insertCommandBuilder(object);
-            logger.log(Level.INFO,"[Executing query] " + cmd);
-            primaryKey.set(object, getAutoGeneratedIdfromDB(cmd));
-
-        } catch (Exception e) {
-            logger.log(Level.SEVERE,"[Error] " + e.getMessage());
+            file = Files.createTempFile("orm-bulk-", ".csv");
+            try (var csv = new CsvFile<>(file, metadata)) {
+                while (objects.hasNext()) {
+                    T object = objects.next();
+                    if (!metadata.isIdGeneratedByDatabase()) {
+                        assignId(connection, metadata, object);
+                    }
+                    csv.write(object);
+                }
+                if (csv.getRows() == 0) {
+                    return 0L;
+                }
+            }
+            String sql = metadata.getCsvInsertSql(file.toAbsolutePath().toString());
+            try (var statement = connection.getConnection().prepareStatement(sql)) {
+                return (long) executeUpdate(statement, sql);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Can't write bulk load file: " + e.getMessage(), e);
+        } finally {
+            if (file != null) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private <T> long saveInBatches(Iterator<T> objects) {
+        long saved = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        while (objects.hasNext()) {
+            batch.add(objects.next());
+            if (batch.size() == batchSize || !objects.hasNext()) {
+                saveAll(batch, batchSize);
+                saved += batch.size();
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        return saved;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, () -> "[Error] Can't delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inserts {@code objects} on {@code connection} without committing and assigns their ids.
+     */
+    <T> void insertBatch(PooledConnection connection, EntityMetadata<T> metadata, List<T> objects) throws SQLException {
+        if (metadata.isIdGeneratedByDatabase()) {
+            executeBatches(connection, metadata.getInsertSql(), Statement.RETURN_GENERATED_KEYS, objects, batchSize,
+                    metadata::bindInsert, (statement, batch, counts) -> afterInsert(metadata, statement, batch));
+            return;
+        }
+        for (T object : objects) {
+            assignId(connection, metadata, object);
+        }
+        executeBatches(connection, metadata.getInsertSql(), Statement.NO_GENERATED_KEYS, objects, batchSize,
+                metadata::bindInsert, (statement, batch, counts) -> { });
+    }
+
+    private <T> void afterInsert(EntityMetadata<T> metadata, PreparedStatement statement, List<T> batch)
+            throws SQLException {
+        var primaryKey = metadata.getIdColumn();
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (T object : batch) {
+                if (!keys.next()) {
+                    logger.log(Level.SEVERE,"[Error] " + "Auto increment field can't be absent");
+                    throw new NoSuchElementException("Auto increment field can't be absent");
+                }
+                primaryKey.set(object, Long.parseLong(keys.getString(1)));
+            }
+        }
+    }
+
+    /**
+     * Updates all objects by id through JDBC batches of {@code orm.batchSize} rows.
+     *
+     * @return total number of updated rows
+     */
+    public <T> int updateAll(Collection<T> objects) {
+        return updateAll(objects, batchSize);
+    }
+
+    public <T> int updateAll(Collection<T> objects, int batchSize) {
+        if (objects.isEmpty()) {
+            return 0;
+        }
+        var metadata = sameEntity(objects);
+        var region = cache.region(metadata);
+        var primaryKey = metadata.getIdColumn();
+        return runBatches(metadata.getUpdateSql(), Statement.NO_GENERATED_KEYS, objects, batchSize,
+                metadata::bindUpdate, (statement, batch, counts) -> afterUpdates(metadata, batch, counts), batch -> {
+                    if (region != null) {
+                        batch.forEach(object -> region.evict(primaryKey.get(object)));
+                    }
+                });
+    }
+
+    /**
+     * Deletes rows of {@code clazz} by id through JDBC batches of {@code orm.batchSize} rows.
+     *
+     * @return total number of deleted rows
+     */
+    public <T> int deleteAllById(Class<T> clazz, Collection<?> ids) {
+        return deleteAllById(clazz, ids, batchSize);
+    }
+
+    public <T> int deleteAllById(Class<T> clazz, Collection<?> ids, int batchSize) {
+        var metadata = EntityMetadata.of(clazz);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        var primaryKey = metadata.getIdColumn();
+        var region = cache.region(metadata);
+        List<Object> normalized = new ArrayList<>(ids.size());
+        ids.forEach(id -> normalized.add(primaryKey.normalize(id)));
+        return runBatches(metadata.getDeleteByIdSql(), Statement.NO_GENERATED_KEYS, normalized, batchSize,
+                (statement, id) -> primaryKey.bindValue(statement, 1, id), (statement, batch, counts) -> { }, batch -> {
+                    if (region != null) {
+                        batch.forEach(region::evict);
+                    }
+                });
+    }
+
+    /**
+     * Updates the {@code dirty} columns of {@code objects} on {@code connection} without committing.
+     *
+     * @return number of updated rows
+     */
+    <T> int updateBatch(PooledConnection connection, EntityMetadata<T> metadata, BitSet dirty, List<T> objects)
+            throws SQLException {
+        return executeBatches(connection, metadata.getUpdateSql(dirty), Statement.NO_GENERATED_KEYS, objects, batchSize,
+                (statement, object) -> metadata.bindUpdate(statement, object, dirty),
+                (statement, batch, counts) -> afterUpdates(metadata, batch, counts));
+    }
+
+    /**
+     * Evicts updated rows from the cache; for versioned entities fails on the first row that
+     * wasn't updated and otherwise advances the versions of the batch.
+     */
+    private <T> void afterUpdates(EntityMetadata<T> metadata, List<T> batch, int[] counts) {
+        var region = cache.region(metadata);
+        var primaryKey = metadata.getIdColumn();
+        if (region != null) {
+            batch.forEach(object -> region.evict(primaryKey.get(object)));
+        }
+        if (metadata.isVersioned()) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (counts[i] == 0) {
+                    throw optimisticLockFailure(metadata, batch.get(i));
+                }
+            }
+            batch.forEach(metadata::incrementVersion);
+        }
+    }
+
+    private <T> OptimisticLockException optimisticLockFailure(EntityMetadata<T> metadata, T object) {
+        var failure = new OptimisticLockException(object, metadata.getIdColumn().get(object),
+                metadata.getVersionColumn().get(object));
+        logger.log(Level.WARNING, () -> "[Optimistic lock] " + failure.getMessage());
+        return failure;
+    }
+
+    /**
+     * Deletes rows of {@code metadata} by id on {@code connection} without committing.
+     *
+     * @return number of deleted rows
+     */
+    <T> int deleteBatch(PooledConnection connection, EntityMetadata<T> metadata, List<Object> ids) throws SQLException {
+        var region = cache.region(metadata);
+        var primaryKey = metadata.getIdColumn();
+        return executeBatches(connection, metadata.getDeleteByIdSql(), Statement.NO_GENERATED_KEYS, ids, batchSize,
+                (statement, id) -> primaryKey.bindValue(statement, 1, id), (statement, batch, counts) -> {
+                    if (region != null) {
+                        batch.forEach(region::evict);
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> EntityMetadata<T> sameEntity(Collection<T> objects) {
+        var type = (Class<T>) objects.iterator().next().getClass();
+        for (T object : objects) {
+            if (object.getClass() != type) {
+                logger.log(Level.SEVERE,"[Error] " + "Batch contains more than one entity type");
+                throw new IllegalArgumentException("Batch contains more than one entity type");
+            }
+        }
+        return EntityMetadata.of(type);
+    }
+
+    private <E> int runBatches(String sql, int autoGeneratedKeys, Collection<E> items, int batchSize,
+                               ParameterBinder<E> binder, BatchCallback<E> afterBatch) {
+        return runBatches(sql, autoGeneratedKeys, items, batchSize, binder, afterBatch, batch -> { });
+    }
+
+    /**
+     * Runs {@code items} as JDBC batches on a connection of their own and commits every batch.
+     * {@code afterCommit} runs once a batch is committed, to evict its rows from the cache again:
+     * reads that ran before the commit still saw the old rows.
+     */
+    private <E> int runBatches(String sql, int autoGeneratedKeys, Collection<E> items, int batchSize,
+                               ParameterBinder<E> binder, BatchCallback<E> afterBatch, Consumer<List<E>> afterCommit) {
+        try (var pooled = borrow()) {
+            var connection = pooled.getConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                return executeBatches(pooled, sql, autoGeneratedKeys, items, batchSize, binder, (statement, batch, counts) -> {
+                    afterBatch.accept(statement, batch, counts);
+                    connection.commit();
+                    afterCommit.accept(batch);
+                });
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
             throw new RuntimeException(e.getMessage());
         }
     }
 
+    private <E> int executeBatches(PooledConnection pooled, String sql, int autoGeneratedKeys, Collection<E> items,
+                                   int batchSize, ParameterBinder<E> binder, BatchCallback<E> afterBatch)
+            throws SQLException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        var statement = pooled.statements().prepare(sql, autoGeneratedKeys);
+        int updated = 0;
+        List<E> batch = new ArrayList<>(Math.min(batchSize, items.size()));
+        for (E item : items) {
+            binder.bind(statement, item);
+            statement.addBatch();
+            batch.add(item);
+            if (batch.size() == batchSize) {
+                updated += executeBatch(statement, sql, batch, afterBatch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += executeBatch(statement, sql, batch, afterBatch);
+        }
+        return updated;
+    }
+
+    private <E> int executeBatch(PreparedStatement statement, String sql, List<E> batch,
+                                 BatchCallback<E> afterBatch) throws SQLException {
+        sqlLog.executingBatch(sql, batch.size());
+        long start = System.nanoTime();
+        int[] counts = cancellable(statement, statement::executeBatch);
+        long elapsed = System.nanoTime() - start;
+        metrics.batchExecuted(sql, batch.size(), elapsed);
+        sqlLog.executed("batch", sql, elapsed, batch.size());
+        checkSlow(sql, elapsed);
+        int updated = 0;
+        for (int count : counts) {
+            updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        afterBatch.accept(statement, batch, counts);
+        return updated;
+    }
+
+    @FunctionalInterface
+    private interface ParameterBinder<E> {
+        void bind(PreparedStatement statement, E item) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface BatchCallback<E> {
+        /**
+         * @param counts update count of every statement of the batch
+         */
+        void accept(PreparedStatement statement, List<E> batch, int[] counts) throws SQLException;
+    }
+
+    /**
+     * Renders the INSERT for {@code object} with literal values. {@link #save(Object)} itself
+     * runs the parameterized form, so this is meant for logging and diagnostics.
+     */
     public <T> String insertCommandBuilder(T object){
+        var metadata = EntityMetadata.of(object);
         StringBuilder builder = new StringBuilder("INSERT INTO ");
-        builder.append(readEntityAnnotation(object.getClass(), object.getClass().getAnnotation(Entity.class)))
+        builder.append(metadata.getTableName())
                 .append("(");
-        var clazz = object.getClass();
         List<Object> values = new ArrayList<>();
-        for (var field : clazz.getDeclaredFields()) {
-            field.setAccessible(true);
-            if (field.isAnnotationPresent(Column.class)) {
-                builder.append(readAnnotationColumn(field, field.getAnnotation(Column.class)))
+        for (var column : metadata.getColumns()) {
+            builder.append(column.getName())
+                    .append(",");
+            values.add(column.get(object));
+        }
+        for (var reference : metadata.getReferences()) {
+            var targetId = reference.getTargetId(object);
+            if (targetId != null) {
+                builder.append(reference.getName())
                         .append(",");
-                try {
-                    values.add(field.get(object));
-                } catch (IllegalAccessException e) {
-                    logger.log(Level.SEVERE,"[Error] " + e.getMessage());
-                    e.printStackTrace();
-                }
+                values.add(targetId);
             }
         }
         builder.deleteCharAt(builder.length() - 1).append(") VALUES (");
@@ -246,11 +1048,8 @@ public class OrmManager {
                 .toString();
     }
 
-    private long getAutoGeneratedIdfromDB(String command) {
-        try (Statement statement = connection.createStatement()) {
-            statement.execute(command, Statement.RETURN_GENERATED_KEYS);
-            ResultSet resultSet = statement.getGeneratedKeys();
-
+    private long getAutoGeneratedIdfromDB(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.getGeneratedKeys()) {
             String key;
             if (resultSet.next()) {
                 key = resultSet.getString(1);
@@ -259,59 +1058,217 @@ public class OrmManager {
                 logger.log(Level.SEVERE,"[Error] " + "Auto increment field can't be absent");
                 throw new NoSuchElementException("Auto increment field can't be absent");
             }
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE,"[SQL Error] " + e.getMessage());
-            throw new RuntimeException(e.getMessage());
         }
     }
 
-    private <T> Field getIdField(T object) {
-        for (var field : object.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(Id.class)) {
-                return field;
+    public <T> Optional<T> getById(Class<T> clazz, Object id) {
+        var metadata = EntityMetadata.of(clazz);
+        return withConnection(connection -> getById(connection, metadata, id, null, null));
+    }
+
+    /**
+     * @param identities instances already loaded in this unit of work, or {@code null}; the
+     *                   loaded entity and its relations are registered there
+     * @param lazyLoads  connection of the lazy loads of the unit of work, or {@code null} to
+     *                   borrow one per load
+     */
+    <T> Optional<T> getById(PooledConnection connection, EntityMetadata<T> metadata, Object rawId,
+                            Map<EntityKey, Object> identities, RelationLoader.Connector lazyLoads)
+            throws SQLException {
+        var id = metadata.getIdColumn().normalize(rawId);
+        return timed(OrmMetrics.Operation.GET_BY_ID, metadata, () -> {
+            var result = findById(connection, metadata, id);
+            if (result.isPresent()) {
+                if (identities != null) {
+                    identities.put(new EntityKey(metadata.getType(), id), result.get());
+                }
+                if (metadata.needsRelationLoader()) {
+                    relations(connection, identities, lazyLoads).load(metadata, List.of(result.get()));
+                }
             }
-        }
-        logger.log(Level.SEVERE,"[Error] " + "Id annotated field wasn't found.");
-        throw new RuntimeException("Id annotated field wasn't found.");
+            return result;
+        });
     }
 
-    public <T> Optional<T> getById(Class<T> clazz, Long id) {
-        checkForEntityAnnotation(clazz);
+    private <T> Optional<T> findById(PooledConnection connection, EntityMetadata<T> metadata, Object id) throws SQLException {
+        var region = cache.region(metadata);
+        if (region != null) {
+            var cached = region.get(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
         Optional<T> result = Optional.empty();
-        try (Statement statement = connection.createStatement()) {
-            var cmd = getByIdCommandBuilder(clazz, id);
-            ResultSet resultSet = statement.executeQuery(cmd);
-            logger.log(Level.INFO,"[Executing query] " + cmd);
+        var readThrough = readThroughRegion(connection, metadata);
+        long stamp = readThrough == null ? 0 : readThrough.stamp();
+        var statement = connection.statements().prepare(metadata.getSelectByIdSql());
+        metadata.getIdColumn().bindValue(statement, 1, id);
+        try (ResultSet resultSet = executeQuery(statement, metadata.getSelectByIdSql())) {
+            var mapper = rowMapperType.bind(metadata, resultSet);
             while (resultSet.next()) {
-                result = Optional.of(resultSetHandling(resultSet, clazz));
+                result = Optional.of(mapper.mapRow(resultSet));
+            }
+        }
+        metrics.rowsMapped(metadata.getType(), result.isPresent() ? 1 : 0);
+        if (readThrough != null) {
+            result.ifPresent(object -> readThrough.put(object, stamp));
+        }
+        return result;
+    }
+
+    /**
+     * @return the cache region that rows read on {@code connection} may be added to, or
+     * {@code null} if the entity isn't cacheable or a transaction is open on the connection:
+     * its reads see the transaction's own uncommitted rows
+     */
+    <T> EntityCache<T> readThroughRegion(PooledConnection connection, EntityMetadata<T> metadata) throws SQLException {
+        var region = cache.region(metadata);
+        return region != null && connection.getConnection().getAutoCommit() ? region : null;
+    }
+
+    /**
+     * @return number of deleted rows
+     */
+    public <T> int deleteById(Class<T> clazz, Object id) {
+        var metadata = EntityMetadata.of(clazz);
+        return withConnection(connection -> deleteById(connection, metadata, id));
+    }
+
+    <T> int deleteById(PooledConnection connection, EntityMetadata<T> metadata, Object rawId) throws SQLException {
+        var id = metadata.getIdColumn().normalize(rawId);
+        return timed(OrmMetrics.Operation.DELETE, metadata, () -> {
+            var statement = connection.statements().prepare(metadata.getDeleteByIdSql());
+            metadata.getIdColumn().bindValue(statement, 1, id);
+            int deleted = executeUpdate(statement, metadata.getDeleteByIdSql());
+            var region = cache.region(metadata);
+            if (region != null) {
+                region.evict(id);
             }
+            return deleted;
+        });
+    }
+
+    <R> R withConnection(SqlFunction<PooledConnection, R> work) {
+        try (var connection = borrow()) {
+            return work.apply(connection);
         } catch (SQLException e) {
-            logger.log(Level.SEVERE,"[SQL Error] " + e.getMessage());
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
             throw new RuntimeException(e.getMessage());
         }
-        return result;
+    }
+
+    /**
+     * Borrows a connection from the pool and reports how long that took.
+     */
+    PooledConnection borrow() throws SQLException {
+        long start = System.nanoTime();
+        var connection = pool.borrow();
+        metrics.connectionAcquired(System.nanoTime() - start);
+        return connection;
+    }
+
+    /**
+     * Runs {@code work} as one {@code operation} on rows of {@code metadata} and reports its latency.
+     */
+    <R> R timed(OrmMetrics.Operation operation, EntityMetadata<?> metadata, SqlSupplier<R> work) throws SQLException {
+        metrics.operationStarted(operation, metadata.getType());
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            R result = work.get();
+            failed = false;
+            return result;
+        } finally {
+            metrics.operationCompleted(operation, metadata.getType(), System.nanoTime() - start, failed);
+        }
+    }
+
+    ResultSet executeQuery(PreparedStatement statement, String sql) throws SQLException {
+        sqlLog.executing(sql);
+        long start = System.nanoTime();
+        var resultSet = cancellable(statement, statement::executeQuery);
+        long elapsed = System.nanoTime() - start;
+        metrics.statementExecuted(sql, elapsed);
+        sqlLog.executed("query", sql, elapsed, -1);
+        checkSlow(sql, elapsed);
+        return resultSet;
+    }
+
+    int executeUpdate(PreparedStatement statement, String sql) throws SQLException {
+        sqlLog.executing(sql);
+        long start = System.nanoTime();
+        int updated = cancellable(statement, statement::executeUpdate);
+        long elapsed = System.nanoTime() - start;
+        metrics.statementExecuted(sql, elapsed);
+        sqlLog.executed("update", sql, elapsed, updated);
+        checkSlow(sql, elapsed);
+        return updated;
+    }
+
+    /**
+     * Runs {@code execution} so that cancelling the asynchronous operation of this thread, if
+     * any, cancels {@code statement}; see {@link AsyncOrmManager}.
+     */
+    private static <R> R cancellable(Statement statement, SqlSupplier<R> execution) throws SQLException {
+        var canceller = StatementCanceller.current();
+        if (canceller == null) {
+            return execution.get();
+        }
+        canceller.started(statement);
+        try {
+            return execution.get();
+        } finally {
+            canceller.finished();
+        }
+    }
+
+    private void checkSlow(String sql, long elapsedNanos) {
+        if (elapsedNanos >= slowQueryNanos) {
+            logger.log(Level.WARNING, () -> "[Slow query] " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms: " + sql);
+            metrics.slowQuery(sql, elapsedNanos);
+        }
+    }
+
+    OrmMetrics getMetrics() {
+        return metrics;
+    }
+
+    @FunctionalInterface
+    interface SqlFunction<A, R> {
+        R apply(A argument) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface SqlSupplier<R> {
+        R get() throws SQLException;
     }
 
     public <T> String getByIdCommandBuilder(Class<T> clazz, Long id){
+        var metadata = EntityMetadata.of(clazz);
         StringBuilder builder = new StringBuilder("SELECT * FROM ");
-        return builder.append(readEntityAnnotation(clazz, clazz.getAnnotation(Entity.class)))
-                .append(" WHERE ID = ")
+        return builder.append(metadata.getTableName())
+                .append(" WHERE ")
+                .append(metadata.getIdColumn().getName())
+                .append(" = ")
                 .append(id.toString())
                 .append(";")
                 .toString();
     }
 
     public void delete(Class<?> table, String condition) {
-        Entity entity = table.getAnnotation(Entity.class);
-        List<String> fields = getFields(table);
+        var metadata = EntityMetadata.of(table);
+        List<String> fields = getFields(metadata);
         if (where(condition,fields))
         {
-            var cmd = "DELETE FROM " + entity.value() + " WHERE " + condition.toUpperCase() + ";";
+            var cmd = "DELETE FROM " + metadata.getTableName() + " WHERE " + condition.toUpperCase() + ";";
             runCommand(cmd);
+            var region = cache.region(metadata);
+            if (region != null) {
+                region.clear();
+            }
         }
         else {
-            logger.warning("Wrong condition format: " + condition);
-            System.out.println("Wrong condition format");
+            logger.warning(() -> "Wrong condition format: " + condition);
         }
 
     }
@@ -344,49 +1301,18 @@ public class OrmManager {
         return "-1";
     }
 
-    private List<String> getFields(Class<?> table){
-        Entity entity = table.getAnnotation(Entity.class);
+    private List<String> getFields(EntityMetadata<?> metadata){
         List<String> fields = new ArrayList<>();
-        if (entity == null) {
-            logger.log(Level.WARNING, "No table annotations for class " + table.getName());
-            System.out.println("No table annotations for class " + table.getName());
-        } else {
-            for (Field field : table.getDeclaredFields()) {
-                Annotation[] annotations = field.getDeclaredAnnotations();
-
-                for (var annotation:annotations) {
-                    if (annotation instanceof Id) {
-                        fields.add(readAnnotation(field,(Id)annotation));
-                    }
-                    if(annotation instanceof Column) {
-                        fields.add(readAnnotationColumn(field,(Column)annotation));
-                    }
-                }
-            }
+        for (var column : metadata.getMappedColumns()) {
+            fields.add(column.getName());
         }
-        return fields;
-    }
-
-    private String readAnnotation(Field field, Id id) {
-
-        return (Objects.equals((id).value(), "") ? field.getName() : id.value()).toUpperCase();
-    }
-
-    private String readAnnotationColumn(Field field, Column column) {
-        return (Objects.equals((column).value(), "") ? field.getName() : column.value()).toUpperCase();
-    }
-
-    private <T> String readEntityAnnotation(Class<T> clazz, Entity entity) {
-
-        return (Objects.equals((entity).value(), "") ? clazz.getSimpleName() : entity.value())
-                .toUpperCase();
-    }
-
-    private <T> void checkForEntityAnnotation(Class<T> clazz) {
-        if (!clazz.isAnnotationPresent(Entity.class)) {
-            logger.log(Level.SEVERE,"[Error] " + " Obtained class without entity annotation!");
-            throw new IllegalArgumentException("Obtained class without entity annotation!");
+        for (var column : metadata.getLazyColumns()) {
+            fields.add(column.getName());
         }
+        for (var reference : metadata.getReferences()) {
+            fields.add(reference.getName());
+        }
+        return fields;
     }
 
     private static String removeLastChar(String s) {
@@ -0,0 +1,71 @@
+package manager;
+
+/**
+ * Listener for what an {@link OrmManager} spends its time on. Every callback has an empty
+ * default, so an implementation only overrides the events it records. Callbacks run on the
+ * thread doing the work, inside the operation, and must be thread-safe and cheap.
+ * <p>
+ * {@link InMemoryMetrics} aggregates every event and {@link JmxMetricsExporter} publishes its
+ * numbers as an MBean.
+ */
+public interface OrmMetrics {
+    String SLOW_QUERY_KEY = "orm.slowQueryMillis";
+
+    /**
+     * Ignores every event.
+     */
+    OrmMetrics NONE = new OrmMetrics() {
+    };
+
+    enum Operation {
+        SAVE, UPDATE, GET_BY_ID, GET_ALL, DELETE, QUERY
+    }
+
+    /**
+     * Called before an operation runs, e.g. to open a tracing span.
+     */
+    default void operationStarted(Operation operation, Class<?> entity) {
+    }
+
+    /**
+     * @param elapsedNanos time spent in the operation, waiting for a connection excluded
+     * @param failed       whether the operation ended with an exception
+     */
+    default void operationCompleted(Operation operation, Class<?> entity, long elapsedNanos, boolean failed) {
+    }
+
+    /**
+     * @param rows number of rows turned into new instances by one query
+     */
+    default void rowsMapped(Class<?> entity, int rows) {
+    }
+
+    /**
+     * Called after a statement that isn't part of a JDBC batch ran, DDL included.
+     */
+    default void statementExecuted(String sql, long elapsedNanos) {
+    }
+
+    default void batchExecuted(String sql, int size, long elapsedNanos) {
+    }
+
+    default void connectionAcquired(long waitNanos) {
+    }
+
+    default void cacheAccessed(Class<?> entity, boolean hit) {
+    }
+
+    /**
+     * Called for every statement that ran for at least {@link #slowQueryThresholdMillis()}.
+     */
+    default void slowQuery(String sql, long elapsedNanos) {
+    }
+
+    /**
+     * @return slow query threshold, read once when the {@link OrmManager} is created;
+     * {@code orm.slowQueryMillis} by default
+     */
+    default long slowQueryThresholdMillis() {
+        return PropertiesUtil.getInt(SLOW_QUERY_KEY, 1000);
+    }
+}
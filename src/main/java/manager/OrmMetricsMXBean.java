@@ -0,0 +1,34 @@
+package manager;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attributes published by {@link JmxMetricsExporter}; operation maps are keyed by
+ * {@link OrmMetrics.Operation} name.
+ */
+public interface OrmMetricsMXBean {
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Long> getOperationFailures();
+
+    Map<String, Double> getOperationMeanMillis();
+
+    Map<String, Double> getOperationP99Millis();
+
+    long getRowsMapped();
+
+    long getStatements();
+
+    long getBatches();
+
+    double getAverageBatchSize();
+
+    double getPoolWaitP99Millis();
+
+    double getCacheHitRatio();
+
+    long getSlowQueryCount();
+
+    List<String> getRecentSlowQueries();
+}
@@ -0,0 +1,38 @@
+package manager;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query, see {@link Query#page(int)}.
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final Object nextKey;
+    private final boolean hasNext;
+
+    Page(List<T> items, Object nextKey, boolean hasNext) {
+        this.items = items;
+        this.nextKey = nextKey;
+        this.hasNext = hasNext;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return id to pass to {@link Query#after(Object)} for the next page
+     */
+    public Object getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public String toString() {
+        return items.size() + " items, next after " + nextKey + (hasNext ? "" : " (last page)");
+    }
+}
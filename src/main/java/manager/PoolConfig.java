@@ -0,0 +1,71 @@
+package manager;
+
+/**
+ * Settings of a {@link ConnectionPool}. {@link #fromProperties(String)} reads them from
+ * {@code app.properties} under the database key, e.g. {@code H2.db.pool.maxSize}.
+ */
+public final class PoolConfig {
+    private static final String PREFIX = ".pool.";
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int validationTimeoutSeconds;
+
+    /**
+     * @param minSize                      connections kept open even when idle
+     * @param maxSize                      upper bound of open connections
+     * @param idleTimeoutMillis            idle time after which connections above {@code minSize} are closed
+     * @param acquireTimeoutMillis         how long {@link ConnectionPool#borrow()} waits for a free connection
+     * @param leakDetectionThresholdMillis borrow time after which a leak warning is logged, {@code 0} disables it
+     * @param validationTimeoutSeconds     timeout of the {@code isValid} check done on borrow
+     */
+    public PoolConfig(int minSize, int maxSize, long idleTimeoutMillis, long acquireTimeoutMillis,
+                      long leakDetectionThresholdMillis, int validationTimeoutSeconds) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Pool size must satisfy 0 <= min <= max and max >= 1");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public static PoolConfig fromProperties(String key) {
+        return new PoolConfig(
+                PropertiesUtil.getInt(key + PREFIX + "minSize", 1),
+                PropertiesUtil.getInt(key + PREFIX + "maxSize", 10),
+                PropertiesUtil.getInt(key + PREFIX + "idleTimeoutMs", 600_000),
+                PropertiesUtil.getInt(key + PREFIX + "acquireTimeoutMs", 30_000),
+                PropertiesUtil.getInt(key + PREFIX + "leakDetectionThresholdMs", 0),
+                PropertiesUtil.getInt(key + PREFIX + "validationTimeoutSec", 5));
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+}
@@ -0,0 +1,73 @@
+package manager;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Physical connection lent out by a {@link ConnectionPool}. Closing it hands the connection
+ * back to the pool; the prepared statements cached for it stay open for the next borrower.
+ */
+public final class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statements;
+    private final AtomicBoolean borrowed = new AtomicBoolean();
+    private volatile long lastUsedMillis;
+    private volatile long borrowedAtMillis;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statements = new StatementCache(connection);
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    StatementCache statements() {
+        return statements;
+    }
+
+    long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    long getBorrowedAtMillis() {
+        return borrowedAtMillis;
+    }
+
+    Throwable getBorrowSite() {
+        return borrowSite;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void markLeakReported() {
+        leakReported = true;
+    }
+
+    void onBorrow(Throwable site) {
+        borrowed.set(true);
+        borrowedAtMillis = System.currentTimeMillis();
+        borrowSite = site;
+        leakReported = false;
+    }
+
+    void onReturn() {
+        lastUsedMillis = System.currentTimeMillis();
+        borrowSite = null;
+    }
+
+    @Override
+    public void close() {
+        if (borrowed.compareAndSet(true, false)) {
+            pool.release(this);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package manager;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the columns of a projection query, in the order of the requested fields, into a DTO.
+ * A constructor taking one argument per field is preferred; otherwise the no-argument
+ * constructor is used and fields are set by name. If several constructors take that many
+ * arguments, the one whose parameters are named like the requested fields is used, or, for
+ * classes compiled without {@code -parameters}, the one typed like the fields of those names.
+ * Built once per DTO type and field list.
+ */
+final class ProjectionMapper<R> {
+    private static final Map<String, ProjectionMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+
+    private final Class<R> type;
+    private final Class<?>[] types;
+    private final MethodHandle constructor;
+    private final Field[] fields;
+
+    private ProjectionMapper(Class<R> type, List<String> names) {
+        this.type = type;
+        this.types = new Class<?>[names.size()];
+        try {
+            var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            var allArguments = allArgumentsConstructor(type, names);
+            if (allArguments != null) {
+                var parameters = allArguments.getParameterTypes();
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = boxed(parameters[i]);
+                }
+                this.constructor = lookup.unreflectConstructor(allArguments)
+                        .asSpreader(Object[].class, names.size())
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                this.fields = null;
+            } else {
+                this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                this.fields = new Field[names.size()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = findField(type, names.get(i));
+                    fields[i].setAccessible(true);
+                    types[i] = boxed(fields[i].getType());
+                }
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " needs a constructor taking " + names.size()
+                    + " arguments or a no-argument constructor", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R> ProjectionMapper<R> of(Class<R> type, List<String> names) {
+        var key = type.getName() + ":" + String.join(",", names).toUpperCase();
+        var mapper = MAPPERS.get(key);
+        if (mapper == null) {
+            mapper = MAPPERS.computeIfAbsent(key, ignored -> new ProjectionMapper<>(type, names));
+        }
+        return (ProjectionMapper<R>) mapper;
+    }
+
+    /**
+     * @return the constructor taking one argument per name, or {@code null} if there is none
+     */
+    private static Constructor<?> allArgumentsConstructor(Class<?> type, List<String> names) {
+        List<Constructor<?>> candidates = new ArrayList<>();
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+            if (candidate.getParameterCount() == names.size()) {
+                candidates.add(candidate);
+            }
+        }
+        if (candidates.size() < 2) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        candidates.removeIf(candidate -> !takes(candidate, names));
+        if (candidates.size() != 1) {
+            throw new IllegalArgumentException(type.getName() + " has several constructors taking " + names.size()
+                    + " arguments and none of them is named or typed like the fields " + names);
+        }
+        return candidates.get(0);
+    }
+
+    private static boolean takes(Constructor<?> constructor, List<String> names) {
+        var parameters = constructor.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].isNamePresent()) {
+                if (!parameters[i].getName().equalsIgnoreCase(names.get(i))) {
+                    return false;
+                }
+            } else {
+                var field = declaredField(constructor.getDeclaringClass(), names.get(i));
+                if (field == null || boxed(field.getType()) != boxed(parameters[i].getType())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        var field = declaredField(type, name);
+        if (field == null) {
+            throw new IllegalArgumentException(type.getName() + " has no field " + name);
+        }
+        return field;
+    }
+
+    private static Field declaredField(Class<?> type, String name) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getName().equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    R map(ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[types.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resultSet.getObject(i + 1, types[i]);
+        }
+        try {
+            if (fields == null) {
+                return type.cast((Object) constructor.invokeExact(values));
+            }
+            R object = type.cast((Object) constructor.invokeExact());
+            for (int i = 0; i < fields.length; i++) {
+                if (values[i] != null || !fields[i].getType().isPrimitive()) {
+                    fields[i].set(object, values[i]);
+                }
+            }
+            return object;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Can't map projection to " + type.getName(), e);
+        }
+    }
+}
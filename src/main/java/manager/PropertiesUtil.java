@@ -18,7 +18,7 @@ public final class PropertiesUtil {
         try (var inputStream = PropertiesUtil.class.getClassLoader().getResourceAsStream("app.properties")) {
             PROPERTIES.load(inputStream);
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "[Error] " + e.getMessage());
+            logger.log(Level.SEVERE, () -> "[Error] " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
@@ -27,6 +27,15 @@ public final class PropertiesUtil {
         return PROPERTIES.getProperty(key);
     }
 
+    public static String get(String key, String defaultValue) {
+        return PROPERTIES.getProperty(key, defaultValue);
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        var value = PROPERTIES.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
     private PropertiesUtil() {
     }
 
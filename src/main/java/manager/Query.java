@@ -0,0 +1,475 @@
+package manager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fluent query over one entity class, started with {@link OrmManager#find(Class)}:
+ * <pre>{@code
+ * List<Animal> old = orm.find(Animal.class).where("age").gt(30).orderBy("name").limit(10).list();
+ * int renamed = orm.find(Animal.class).where("name").eq("alex").set("name", "Alex").update();
+ * }</pre>
+ * Field and column names are both accepted. Every query runs as parameterized SQL; the SQL is
+ * compiled once per query shape (conditions, ordering and limit without their values) and
+ * cached on the entity, so repeated queries skip the compilation and reuse the connection's
+ * prepared statement. Conditions are combined left to right, {@code AND} binding tighter than
+ * {@code OR} as in SQL.
+ * <p>
+ * Large results are read page by page with keyset pagination, and narrow reads project only the
+ * needed columns into a DTO:
+ * <pre>{@code
+ * Page<Animal> page = orm.find(Animal.class).where("age").gt(30).after(lastSeenId).page(50);
+ * List<AnimalRow> rows = orm.find(Animal.class).limit(20).select(AnimalRow.class, "id", "name");
+ * }</pre>
+ * <p>
+ * A query is a builder for one call site and must not be shared between threads.
+ */
+public final class Query<T> {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final OrmManager manager;
+    private final EntityMetadata<T> metadata;
+    private final List<Predicate> predicates = new ArrayList<>();
+    private final List<String> orderBy = new ArrayList<>();
+    private final List<String> assignments = new ArrayList<>();
+    private final List<Object> assignedValues = new ArrayList<>();
+    private int limit = -1;
+    private boolean seek;
+    private Object seekAfter;
+
+    Query(OrmManager manager, EntityMetadata<T> metadata) {
+        this.manager = manager;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Starts a condition on {@code field}; combined with {@code AND} if there are conditions already.
+     */
+    public Condition<T> where(String field) {
+        return new Condition<>(this, "AND", field);
+    }
+
+    public Condition<T> and(String field) {
+        return new Condition<>(this, "AND", field);
+    }
+
+    public Condition<T> or(String field) {
+        return new Condition<>(this, "OR", field);
+    }
+
+    public Query<T> orderBy(String field) {
+        orderBy.add(field);
+        return this;
+    }
+
+    public Query<T> orderByDescending(String field) {
+        orderBy.add(field + " DESC");
+        return this;
+    }
+
+    public Query<T> limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit can't be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Keyset pagination: only rows whose id is greater than {@code id}, ordered by id. Unlike an
+     * {@code OFFSET}, the database seeks straight to the first row through the primary key index,
+     * so a deep page costs as much as the first one. {@code null} starts at the first row.
+     */
+    public Query<T> after(Object id) {
+        metadata.getIdColumn();
+        this.seek = true;
+        this.seekAfter = id;
+        return this;
+    }
+
+    /**
+     * Assigns {@code value} to {@code field} in {@link #update()}.
+     */
+    public Query<T> set(String field, Object value) {
+        assignments.add(field);
+        assignedValues.add(value);
+        return this;
+    }
+
+    /**
+     * @return matching entities, with relations loaded as by {@link OrmManager#getAll(Class)}
+     */
+    public List<T> list() {
+        return selectEntities(limit);
+    }
+
+    public Optional<T> first() {
+        var result = selectEntities(1);
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    /**
+     * Reads up to {@code size} rows after the {@link #after(Object)} key, or from the first row.
+     * One extra row is fetched to tell whether there is a next page.
+     */
+    public Page<T> page(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        if (!seek) {
+            after(null);
+        }
+        var rows = selectEntities(size + 1);
+        boolean hasNext = rows.size() > size;
+        List<T> items = new ArrayList<>(hasNext ? rows.subList(0, size) : rows);
+        Object nextKey = items.isEmpty() ? seekAfter : metadata.getIdColumn().get(items.get(items.size() - 1));
+        return new Page<>(items, nextKey, hasNext);
+    }
+
+    /**
+     * Reads only the columns of {@code fields} into instances of {@code type}: through a
+     * constructor taking one argument per field in the same order, such as a record's, or else
+     * through its no-argument constructor and fields of the same names.
+     */
+    public <R> List<R> select(Class<R> type, String... fields) {
+        requireNoAssignments();
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("Projection needs at least one field");
+        }
+        var mapper = ProjectionMapper.of(type, List.of(fields));
+        var plan = plan(Kind.SELECT, limit >= 0, fields);
+        return manager.withConnection(connection -> manager.timed(OrmMetrics.Operation.QUERY, metadata, () -> {
+            var statement = connection.statements().prepare(plan.getSql());
+            plan.bind(statement, values(), limit);
+            List<R> result = new ArrayList<>();
+            try (ResultSet resultSet = manager.executeQuery(statement, plan.getSql())) {
+                while (resultSet.next()) {
+                    result.add(mapper.map(resultSet));
+                }
+            }
+            manager.getMetrics().rowsMapped(type, result.size());
+            return result;
+        }));
+    }
+
+    public long count() {
+        requireNoAssignments();
+        var plan = plan(Kind.COUNT, false, null);
+        return manager.withConnection(connection -> manager.timed(OrmMetrics.Operation.QUERY, metadata, () -> {
+            var statement = connection.statements().prepare(plan.getSql());
+            plan.bind(statement, values(), limit);
+            try (ResultSet resultSet = manager.executeQuery(statement, plan.getSql())) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }));
+    }
+
+    /**
+     * Applies the {@link #set} assignments to every matching row. Cached rows of the entity are
+     * dropped from the second-level cache. The version of {@code @Version} entities is
+     * incremented unless it is assigned, so copies read before fail to update.
+     *
+     * @return number of updated rows
+     */
+    public int update() {
+        if (assignments.isEmpty()) {
+            throw new IllegalStateException("Update needs at least one set(field, value)");
+        }
+        return execute(plan(Kind.UPDATE, false, null));
+    }
+
+    /**
+     * Deletes every matching row; without conditions that is the whole table. Cached rows of the
+     * entity are dropped from the second-level cache.
+     *
+     * @return number of deleted rows
+     */
+    public int delete() {
+        requireNoAssignments();
+        return execute(plan(Kind.DELETE, false, null));
+    }
+
+    private List<T> selectEntities(int limit) {
+        requireNoAssignments();
+        var plan = plan(Kind.SELECT, limit >= 0, null);
+        return manager.withConnection(connection -> manager.timed(OrmMetrics.Operation.QUERY, metadata, () -> {
+            var statement = connection.statements().prepare(plan.getSql());
+            plan.bind(statement, values(), limit);
+            return manager.readAll(connection, metadata, statement, plan.getSql(), null, null);
+        }));
+    }
+
+    private int execute(QueryPlan plan) {
+        if (!orderBy.isEmpty() || limit >= 0 || seek) {
+            throw new IllegalStateException("orderBy, limit and after only apply to select queries");
+        }
+        int updated = manager.withConnection(connection -> manager.timed(OrmMetrics.Operation.QUERY, metadata, () -> {
+            var statement = connection.statements().prepare(plan.getSql());
+            plan.bind(statement, values(), limit);
+            return manager.executeUpdate(statement, plan.getSql());
+        }));
+        var region = manager.getCache().region(metadata);
+        if (region != null) {
+            region.clear();
+        }
+        return updated;
+    }
+
+    private void requireNoAssignments() {
+        if (!assignments.isEmpty()) {
+            throw new IllegalStateException("set(field, value) only applies to update()");
+        }
+    }
+
+    private List<Object> values() {
+        List<Object> values = new ArrayList<>(assignedValues);
+        for (Predicate predicate : predicates) {
+            values.addAll(predicate.values);
+        }
+        if (seekAfter != null) {
+            values.add(seekAfter);
+        }
+        return values;
+    }
+
+    /**
+     * @param projection fields to select instead of whole entities, or {@code null}
+     */
+    private QueryPlan plan(Kind kind, boolean limited, String[] projection) {
+        if (seek && !orderBy.isEmpty()) {
+            throw new IllegalStateException("Keyset pagination orders by id and can't be combined with orderBy");
+        }
+        StringBuilder shape = new StringBuilder(kind.name());
+        if (limited) {
+            shape.append("|L");
+        }
+        if (projection != null) {
+            shape.append("|P:").append(String.join(",", projection).toUpperCase());
+        }
+        for (String assignment : assignments) {
+            shape.append("|S:").append(assignment.toUpperCase());
+        }
+        for (Predicate predicate : predicates) {
+            shape.append('|').append(predicate.connector).append(':').append(predicate.field.toUpperCase())
+                    .append(':').append(predicate.operator).append(':').append(predicate.values.size());
+        }
+        for (String order : orderBy) {
+            shape.append("|O:").append(order.toUpperCase());
+        }
+        if (seek) {
+            shape.append(seekAfter == null ? "|K0" : "|K");
+        }
+        return metadata.getQueryPlan(shape.toString(), key -> compile(kind, limited, projection));
+    }
+
+    private QueryPlan compile(Kind kind, boolean limited, String[] projection) {
+        List<QueryPlan.ValueBinder> binders = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        switch (kind) {
+            case SELECT -> {
+                if (projection == null) {
+                    sql.append(metadata.getSelectAllSql());
+                } else {
+                    StringJoiner columns = new StringJoiner(",", "SELECT ", " FROM " + metadata.getTableName());
+                    for (String field : projection) {
+                        columns.add(column(field));
+                    }
+                    sql.append(columns);
+                }
+            }
+            case COUNT -> sql.append("SELECT COUNT(*) FROM ").append(metadata.getTableName());
+            case DELETE -> sql.append("DELETE FROM ").append(metadata.getTableName());
+            case UPDATE -> {
+                StringJoiner set = new StringJoiner(",", "UPDATE " + metadata.getTableName() + " SET ", "");
+                boolean versionAssigned = false;
+                for (String assignment : assignments) {
+                    var column = column(assignment);
+                    set.add(column + "=?");
+                    binders.add(metadata.getValueBinder(column));
+                    versionAssigned |= metadata.isVersioned() && metadata.getVersionColumn().getName().equals(column);
+                }
+                if (metadata.isVersioned() && !versionAssigned) {
+                    var version = metadata.getVersionColumn().getName();
+                    set.add(version + "=" + version + "+1");
+                }
+                sql.append(set);
+            }
+        }
+        StringBuilder conditions = new StringBuilder();
+        for (int i = 0; i < predicates.size(); i++) {
+            var predicate = predicates.get(i);
+            if (i > 0) {
+                conditions.append(' ').append(predicate.connector).append(' ');
+            }
+            var column = column(predicate.field);
+            var binder = metadata.getValueBinder(column);
+            switch (predicate.operator) {
+                case IS_NULL -> conditions.append(column).append(" IS NULL");
+                case IS_NOT_NULL -> conditions.append(column).append(" IS NOT NULL");
+                case IN -> {
+                    if (predicate.values.isEmpty()) {
+                        conditions.append("1=0");
+                    } else {
+                        StringJoiner in = new StringJoiner(",", column + " IN (", ")");
+                        for (Object ignored : predicate.values) {
+                            in.add("?");
+                            binders.add(binder);
+                        }
+                        conditions.append(in);
+                    }
+                }
+                default -> {
+                    conditions.append(column).append(predicate.operator.sql).append('?');
+                    binders.add(binder);
+                }
+            }
+        }
+        var idColumn = seek ? metadata.getIdColumn() : null;
+        if (seek && seekAfter != null) {
+            if (conditions.length() > 0) {
+                conditions.insert(0, '(').append(") AND ");
+            }
+            conditions.append(idColumn.getName()).append(">?");
+            binders.add(idColumn::bindValue);
+        }
+        if (conditions.length() > 0) {
+            sql.append(" WHERE ").append(conditions);
+        }
+        if (kind != Kind.SELECT) {
+            return new QueryPlan(sql.toString(), binders, false);
+        }
+        if (seek) {
+            sql.append(" ORDER BY ").append(idColumn.getName());
+        } else if (!orderBy.isEmpty()) {
+            StringJoiner order = new StringJoiner(",", " ORDER BY ", "");
+            for (String field : orderBy) {
+                boolean descending = field.endsWith(" DESC");
+                var column = column(descending ? field.substring(0, field.length() - 5) : field);
+                order.add(descending ? column + " DESC" : column);
+            }
+            sql.append(order);
+        }
+        if (limited) {
+            sql.append(" LIMIT ?");
+        }
+        return new QueryPlan(sql.toString(), binders, limited);
+    }
+
+    private String column(String field) {
+        return metadata.findQueryColumn(field).orElseThrow(() -> {
+            logger.log(Level.SEVERE, () -> "[Query Error] Unknown field " + field + " of " + metadata.getType().getSimpleName());
+            return new IllegalArgumentException("Unknown field " + field + " of " + metadata.getType().getSimpleName());
+        });
+    }
+
+    private Query<T> add(String connector, String field, Operator operator, List<Object> values) {
+        predicates.add(new Predicate(connector, field, operator, values));
+        return this;
+    }
+
+    /**
+     * Pending condition on one field, completed by one of its comparison methods.
+     */
+    public static final class Condition<T> {
+        private final Query<T> query;
+        private final String connector;
+        private final String field;
+
+        private Condition(Query<T> query, String connector, String field) {
+            this.query = query;
+            this.connector = connector;
+            this.field = field;
+        }
+
+        /**
+         * Compares with {@code =}; a {@code null} value becomes {@link #isNull()}.
+         */
+        public Query<T> eq(Object value) {
+            return value == null ? isNull() : query.add(connector, field, Operator.EQ, List.of(value));
+        }
+
+        /**
+         * Compares with {@code <>}; a {@code null} value becomes {@link #isNotNull()}.
+         */
+        public Query<T> ne(Object value) {
+            return value == null ? isNotNull() : query.add(connector, field, Operator.NE, List.of(value));
+        }
+
+        public Query<T> gt(Object value) {
+            return query.add(connector, field, Operator.GT, operand(value));
+        }
+
+        public Query<T> ge(Object value) {
+            return query.add(connector, field, Operator.GE, operand(value));
+        }
+
+        public Query<T> lt(Object value) {
+            return query.add(connector, field, Operator.LT, operand(value));
+        }
+
+        public Query<T> le(Object value) {
+            return query.add(connector, field, Operator.LE, operand(value));
+        }
+
+        public Query<T> like(String pattern) {
+            return query.add(connector, field, Operator.LIKE, operand(pattern));
+        }
+
+        public Query<T> in(Collection<?> values) {
+            return query.add(connector, field, Operator.IN, List.copyOf(values));
+        }
+
+        public Query<T> isNull() {
+            return query.add(connector, field, Operator.IS_NULL, List.of());
+        }
+
+        public Query<T> isNotNull() {
+            return query.add(connector, field, Operator.IS_NOT_NULL, List.of());
+        }
+
+        /**
+         * Nothing compares to {@code null} in SQL, so only {@link #eq} and {@link #ne} accept it.
+         */
+        private List<Object> operand(Object value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Can't compare field " + field + " with null, use isNull() or isNotNull()");
+            }
+            return List.of(value);
+        }
+    }
+
+    private enum Kind {
+        SELECT, COUNT, UPDATE, DELETE
+    }
+
+    private enum Operator {
+        EQ("="), NE("<>"), GT(">"), GE(">="), LT("<"), LE("<="), LIKE(" LIKE "), IN(""), IS_NULL(""), IS_NOT_NULL("");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private static final class Predicate {
+        private final String connector;
+        private final String field;
+        private final Operator operator;
+        private final List<Object> values;
+
+        private Predicate(String connector, String field, Operator operator, List<Object> values) {
+            this.connector = connector;
+            this.field = field;
+            this.operator = operator;
+            this.values = values;
+        }
+    }
+}
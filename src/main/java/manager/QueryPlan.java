@@ -0,0 +1,42 @@
+package manager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Compiled form of one {@link Query} shape: the parameterized SQL and a binder per parameter.
+ * Plans hold no values, so one plan serves every query of the same shape.
+ */
+final class QueryPlan {
+    private final String sql;
+    private final ValueBinder[] binders;
+    private final boolean limited;
+
+    QueryPlan(String sql, List<ValueBinder> binders, boolean limited) {
+        this.sql = sql;
+        this.binders = binders.toArray(new ValueBinder[0]);
+        this.limited = limited;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Binds {@code values} in parameter order, followed by the limit if the plan has one.
+     */
+    void bind(PreparedStatement statement, List<Object> values, int limit) throws SQLException {
+        for (int i = 0; i < binders.length; i++) {
+            binders[i].bind(statement, i + 1, values.get(i));
+        }
+        if (limited) {
+            statement.setInt(binders.length + 1, limit);
+        }
+    }
+
+    @FunctionalInterface
+    interface ValueBinder {
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException;
+    }
+}
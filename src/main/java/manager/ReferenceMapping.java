@@ -0,0 +1,154 @@
+package manager;
+
+import annotations.Entity;
+import annotations.FetchType;
+import annotations.ManyToOne;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * {@code @ManyToOne} field of an entity: a foreign key column holding the id of the target.
+ * Mapping a row puts an id-only instance of the target into the field; the
+ * {@link RelationLoader} replaces it by the loaded entity. Fields declared as {@link Lazy}
+ * get an unloaded holder instead, which the loader attaches to a {@link BatchFetcher}.
+ */
+final class ReferenceMapping {
+    private final Field field;
+    private final String name;
+    private final Class<?> targetType;
+    private final boolean holder;
+    private final boolean lazy;
+    private final int batchSize;
+
+    ReferenceMapping(Field field, String name) {
+        ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+        this.holder = field.getType() == Lazy.class;
+        this.targetType = holder ? valueType(field) : field.getType();
+        if (!targetType.isAnnotationPresent(Entity.class)) {
+            throw new IllegalArgumentException("@ManyToOne field " + field.getName() + " must reference an entity");
+        }
+        if (manyToOne.fetch() == FetchType.LAZY && !holder) {
+            throw new IllegalArgumentException("Lazy @ManyToOne field " + field.getName() + " must be declared as Lazy<"
+                    + targetType.getSimpleName() + ">");
+        }
+        field.setAccessible(true);
+        this.field = field;
+        this.name = name;
+        this.lazy = manyToOne.fetch() == FetchType.LAZY;
+        this.batchSize = manyToOne.batchSize();
+    }
+
+    /**
+     * @return {@code T} of a field declared as {@code Lazy<T>}
+     */
+    static Class<?> valueType(Field field) {
+        if (field.getGenericType() instanceof ParameterizedType) {
+            var argument = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+        }
+        throw new IllegalArgumentException("Field " + field.getName() + " must be declared as Lazy<Type>");
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isLazy() {
+        return lazy;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Resolved on use: entities may reference each other, so the target can't be built
+     * while the owner's metadata is.
+     */
+    EntityMetadata<?> getTarget() {
+        return EntityMetadata.of(targetType);
+    }
+
+    private Object read(Object owner) {
+        try {
+            return field.get(owner);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't read field " + field.getName(), e);
+        }
+    }
+
+    private void write(Object owner, Object value) {
+        try {
+            field.set(owner, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't write field " + field.getName(), e);
+        }
+    }
+
+    /**
+     * @return the {@link Lazy} holder of a field declared as one, {@code null} otherwise
+     */
+    Lazy<?> getLazy(Object owner) {
+        return holder ? (Lazy<?>) read(owner) : null;
+    }
+
+    void setLazy(Object owner, Lazy<?> value) {
+        write(owner, value);
+    }
+
+    /**
+     * Sets the loaded target, wrapped if the field is a {@link Lazy}.
+     */
+    void set(Object owner, Object target) {
+        write(owner, holder ? Lazy.of(target) : target);
+    }
+
+    /**
+     * @return id of the referenced entity, or {@code null} if there is none; never loads
+     */
+    Object getTargetId(Object owner) {
+        var value = read(owner);
+        if (holder && value != null) {
+            var reference = (Lazy<?>) value;
+            if (!reference.isLoaded()) {
+                return reference.getKey();
+            }
+            value = reference.get();
+        }
+        return value == null ? null : getTarget().getIdColumn().get(value);
+    }
+
+    /**
+     * Sets an id-only instance of the target, or a detached {@link Lazy} for holder fields.
+     */
+    void setTargetId(Object owner, Object id) {
+        if (id == null) {
+            write(owner, holder ? Lazy.of(null) : null);
+        } else if (holder) {
+            write(owner, Lazy.detached(id));
+        } else {
+            var target = getTarget();
+            Object reference = target.newInstance();
+            target.getIdColumn().set(reference, id);
+            write(owner, reference);
+        }
+    }
+
+    void bind(PreparedStatement statement, int index, Object owner) throws SQLException {
+        getTarget().getIdColumn().bindValue(statement, index, getTargetId(owner));
+    }
+
+    Object read(ResultSet resultSet) throws SQLException {
+        return resultSet.getObject(name, getTarget().getIdColumn().getType());
+    }
+}
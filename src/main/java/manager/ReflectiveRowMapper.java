@@ -0,0 +1,31 @@
+package manager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+final class ReflectiveRowMapper<T> implements RowMapper<T> {
+    private final EntityMetadata<T> metadata;
+
+    ReflectiveRowMapper(EntityMetadata<T> metadata) {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws SQLException {
+        T object = metadata.newInstance();
+        for (var column : metadata.getMappedColumns()) {
+            column.set(object, readValue(resultSet, column));
+        }
+        return object;
+    }
+
+    private Object readValue(ResultSet resultSet, ColumnMapping column) throws SQLException {
+        var name = column.getName();
+        return switch (column.getType().getSimpleName()) {
+            case "String" -> resultSet.getString(name);
+            case "int" -> resultSet.getInt(name);
+            case "long" -> resultSet.getLong(name);
+            default -> resultSet.getObject(name, column.getType());
+        };
+    }
+}
@@ -0,0 +1,315 @@
+package manager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the relations and lazy columns of freshly loaded entities with a fixed number of
+ * queries. Every eager {@code @ManyToOne} and {@code @OneToMany} field costs one
+ * {@code WHERE ... IN (...)} query per {@code orm.batchSize} distinct keys, no matter how many
+ * entities reference them. Lazy fields get a {@link Lazy} or {@link LazyList} backed by a
+ * {@link BatchFetcher}, which runs the same queries on first access through the
+ * {@link Connector} of the unit of work that loaded the entities.
+ * <p>
+ * Only one level is loaded eagerly: entities reached through a relation get lazy collections
+ * and keep id-only references, except for the back reference of a child to its owner.
+ */
+final class RelationLoader {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final OrmManager manager;
+    private final PooledConnection connection;
+    private final Map<EntityKey, Object> identities;
+    private final Connector lazyLoads;
+
+    /**
+     * @param connection connection for eager loading, {@code null} if entities are only attached
+     * @param identities instances already loaded in this unit of work; loaded entities are
+     *                   looked up and registered here, so a row is mapped at most once
+     * @param lazyLoads  runs the queries of lazy fields on first access
+     */
+    RelationLoader(OrmManager manager, PooledConnection connection, Map<EntityKey, Object> identities,
+                   Connector lazyLoads) {
+        this.manager = manager;
+        this.connection = connection;
+        this.identities = identities;
+        this.lazyLoads = lazyLoads;
+    }
+
+    /**
+     * Loads the eager relations of {@code entities} and attaches the lazy ones.
+     */
+    <T> void load(EntityMetadata<T> metadata, List<T> entities) throws SQLException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        for (var reference : metadata.getReferences()) {
+            if (reference.isLazy()) {
+                attachReference(reference, entities);
+            } else {
+                loadReference(reference, entities);
+            }
+        }
+        for (var collection : metadata.getCollections()) {
+            if (collection.isLazy()) {
+                attachCollection(metadata, collection, entities);
+            } else {
+                loadCollection(metadata, collection, entities);
+            }
+        }
+        attachColumns(metadata, entities);
+    }
+
+    /**
+     * Attaches every {@link Lazy} field and collection of {@code entities} without querying.
+     * Used for entities reached through a relation and for streamed rows.
+     */
+    <T> void attach(EntityMetadata<T> metadata, List<T> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        for (var reference : metadata.getReferences()) {
+            attachReference(reference, entities);
+        }
+        for (var collection : metadata.getCollections()) {
+            attachCollection(metadata, collection, entities);
+        }
+        attachColumns(metadata, entities);
+    }
+
+    private void loadReference(ReferenceMapping reference, List<?> owners) throws SQLException {
+        Set<Object> ids = new LinkedHashSet<>();
+        for (Object owner : owners) {
+            var id = reference.getTargetId(owner);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        var targets = findByIds(reference.getTarget(), ids);
+        for (Object owner : owners) {
+            var id = reference.getTargetId(owner);
+            if (id == null) {
+                continue;
+            }
+            var loaded = targets.get(id);
+            if (loaded == null) {
+                logger.log(Level.WARNING, () -> "[Relation] " + reference.getTarget().getTableName() + " with id " + id + " doesn't exist");
+            }
+            if (loaded != null || reference.getLazy(owner) != null) {
+                reference.set(owner, loaded);
+            }
+        }
+    }
+
+    private void attachReference(ReferenceMapping reference, List<?> owners) {
+        BatchFetcher<Object> fetcher = null;
+        for (Object owner : owners) {
+            var lazy = reference.getLazy(owner);
+            if (lazy != null && !lazy.isLoaded()) {
+                if (fetcher == null) {
+                    fetcher = new BatchFetcher<>(reference.getBatchSize(),
+                            keys -> fetch(loader -> loader.findByIds(reference.getTarget(), keys)));
+                }
+                reference.setLazy(owner, fetcher.newLazy(lazy.getKey()));
+            }
+        }
+    }
+
+    private <T> void loadCollection(EntityMetadata<T> metadata, CollectionMapping collection, List<T> owners)
+            throws SQLException {
+        var idColumn = metadata.getIdColumn();
+        Map<Object, Object> parents = new LinkedHashMap<>();
+        for (T owner : owners) {
+            var id = idColumn.get(owner);
+            if (id != null) {
+                parents.put(id, owner);
+            }
+        }
+        var children = findChildren(collection.getElement(), collection.getMappedBy(), idColumn.getType(), parents);
+        parents.forEach((id, parent) -> collection.set(parent, children.get(id)));
+    }
+
+    private <T> void attachCollection(EntityMetadata<T> metadata, CollectionMapping collection, List<T> owners) {
+        var idColumn = metadata.getIdColumn();
+        Map<Object, Object> parents = new HashMap<>();
+        for (T owner : owners) {
+            var id = idColumn.get(owner);
+            if (id != null) {
+                parents.put(id, owner);
+            }
+        }
+        if (parents.isEmpty()) {
+            return;
+        }
+        var fetcher = new BatchFetcher<List<Object>>(collection.getBatchSize(), keys -> fetch(loader -> {
+            Map<Object, Object> batch = new LinkedHashMap<>();
+            for (Object key : keys) {
+                batch.put(key, parents.get(key));
+            }
+            return loader.findChildren(collection.getElement(), collection.getMappedBy(), idColumn.getType(), batch);
+        }));
+        parents.forEach((id, parent) -> collection.set(parent, new LazyList<>(fetcher.newLazy(id))));
+    }
+
+    private <T> void attachColumns(EntityMetadata<T> metadata, List<T> owners) {
+        for (var column : metadata.getLazyColumns()) {
+            var idColumn = metadata.getIdColumn();
+            var fetcher = new BatchFetcher<Object>(column.getBatchSize(),
+                    keys -> fetch(loader -> loader.selectColumn(metadata, column, keys)));
+            for (T owner : owners) {
+                var id = idColumn.get(owner);
+                if (id != null) {
+                    column.setLazy(owner, fetcher.newLazy(id));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return entities by id, from this unit of work, the second-level cache or the database
+     */
+    private <E> Map<Object, Object> findByIds(EntityMetadata<E> target, Collection<Object> ids) throws SQLException {
+        var region = manager.getCache().region(target);
+        Map<Object, Object> found = new HashMap<>();
+        List<Object> missing = new ArrayList<>();
+        List<E> fresh = new ArrayList<>();
+        for (Object id : ids) {
+            var key = new EntityKey(target.getType(), id);
+            Object known = identities.get(key);
+            if (known == null && region != null) {
+                E cached = region.get(id);
+                if (cached != null) {
+                    identities.put(key, cached);
+                    fresh.add(cached);
+                    known = cached;
+                }
+            }
+            if (known != null) {
+                found.put(id, known);
+            } else {
+                missing.add(id);
+            }
+        }
+        var idColumn = target.getIdColumn();
+        selectIn(target, idColumn.getName(), idColumn.getType(), missing, fresh, found::put);
+        attach(target, fresh);
+        return found;
+    }
+
+    /**
+     * @return children of every parent by parent id, with their back references set
+     */
+    private <E> Map<Object, List<Object>> findChildren(EntityMetadata<E> element, String mappedBy, Class<?> keyType,
+                                                       Map<Object, Object> parents) throws SQLException {
+        var backReference = element.findReference(mappedBy).orElse(null);
+        Map<Object, List<Object>> children = new HashMap<>();
+        for (Object id : parents.keySet()) {
+            children.put(id, new ArrayList<>());
+        }
+        List<E> fresh = new ArrayList<>();
+        selectIn(element, mappedBy, keyType, new ArrayList<>(parents.keySet()), fresh, (parentId, child) -> {
+            children.get(parentId).add(child);
+            if (backReference != null) {
+                backReference.set(child, parents.get(parentId));
+            }
+        });
+        attach(element, fresh);
+        return children;
+    }
+
+    /**
+     * Loads rows of {@code metadata} whose {@code column} is one of {@code keys}, one query per
+     * batch. Rows not known yet are mapped, registered and added to {@code fresh}.
+     */
+    private <E> void selectIn(EntityMetadata<E> metadata, String column, Class<?> keyType, List<?> keys,
+                              List<E> fresh, RowCallback<E> callback) throws SQLException {
+        var idColumn = metadata.hasIdColumn() ? metadata.getIdColumn() : null;
+        var region = manager.readThroughRegion(connection, metadata);
+        int batchSize = manager.getBatchSize();
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            var batch = keys.subList(from, Math.min(keys.size(), from + batchSize));
+            var sql = metadata.getSelectWhereInSql(column, batch.size());
+            var statement = connection.statements().prepare(sql);
+            for (int i = 0; i < batch.size(); i++) {
+                statement.setObject(i + 1, batch.get(i));
+            }
+            int mapped = fresh.size();
+            long stamp = region == null ? 0 : region.stamp();
+            try (ResultSet resultSet = manager.executeQuery(statement, sql)) {
+                var mapper = manager.getRowMapperType().bind(metadata, resultSet);
+                while (resultSet.next()) {
+                    E entity = null;
+                    EntityKey key = null;
+                    if (idColumn != null) {
+                        key = new EntityKey(metadata.getType(), resultSet.getObject(idColumn.getName(), idColumn.getType()));
+                        entity = metadata.getType().cast(identities.get(key));
+                    }
+                    if (entity == null) {
+                        entity = mapper.mapRow(resultSet);
+                        if (key != null) {
+                            identities.put(key, entity);
+                        }
+                        if (region != null) {
+                            region.put(entity, stamp);
+                        }
+                        fresh.add(entity);
+                    }
+                    callback.accept(resultSet.getObject(column, keyType), entity);
+                }
+            }
+            manager.getMetrics().rowsMapped(metadata.getType(), fresh.size() - mapped);
+        }
+    }
+
+    /**
+     * @return values of a lazy column by id
+     */
+    private Map<Object, Object> selectColumn(EntityMetadata<?> metadata, ColumnMapping column, List<Object> ids)
+            throws SQLException {
+        var idColumn = metadata.getIdColumn();
+        var sql = metadata.getSelectColumnSql(column, ids.size());
+        var statement = connection.statements().prepare(sql);
+        for (int i = 0; i < ids.size(); i++) {
+            idColumn.bindValue(statement, i + 1, ids.get(i));
+        }
+        Map<Object, Object> values = new HashMap<>();
+        try (ResultSet resultSet = manager.executeQuery(statement, sql)) {
+            while (resultSet.next()) {
+                values.put(resultSet.getObject(1, idColumn.getType()), resultSet.getObject(2, column.getType()));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Runs a lazy load through {@link #lazyLoads}; the connection this loader was created with
+     * may have been returned to the pool long ago.
+     */
+    private <R> R fetch(OrmManager.SqlFunction<RelationLoader, R> work) {
+        return lazyLoads.withConnection(pooled -> work.apply(new RelationLoader(manager, pooled, identities, lazyLoads)));
+    }
+
+    /**
+     * Provides the connection of a lazy load: a pooled one by default, the connection of the
+     * session that loaded the entities, or the one of a parallel scan chunk.
+     */
+    @FunctionalInterface
+    interface Connector {
+        <R> R withConnection(OrmManager.SqlFunction<PooledConnection, R> work);
+    }
+
+    @FunctionalInterface
+    private interface RowCallback<E> {
+        void accept(Object key, E entity);
+    }
+}
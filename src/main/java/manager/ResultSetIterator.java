@@ -0,0 +1,83 @@
+package manager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Maps rows of a forward-only {@link ResultSet} one at a time, holding only the current row.
+ * Owns the statement and the borrowed connection and gives both back on {@link #close()}.
+ */
+final class ResultSetIterator<T> implements CloseableIterator<T> {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final PooledConnection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> mapper;
+    private boolean advanced;
+    private boolean hasRow;
+    private boolean closed;
+
+    ResultSetIterator(PooledConnection connection, PreparedStatement statement, ResultSet resultSet, RowMapper<T> mapper) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!advanced) {
+            try {
+                hasRow = resultSet.next();
+            } catch (SQLException e) {
+                close();
+                logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
+                throw new RuntimeException(e.getMessage());
+            }
+            advanced = true;
+            if (!hasRow) {
+                close();
+            }
+        }
+        return hasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            return mapper.mapRow(resultSet);
+        } catch (SQLException e) {
+            close();
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hasRow = false;
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, () -> "[SQL Error] " + e.getMessage());
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package manager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Turns the current row of a {@link ResultSet} into an entity. A mapper is bound to one
+ * result set shape, so column positions are resolved before the first row is read.
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,47 @@
+package manager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row materialization strategies. Selected per {@link OrmManager} through the
+ * {@code orm.rowMapper} property, so both paths can be compared on the same data.
+ */
+public enum RowMapperType {
+    /**
+     * {@code Field.set} per column, columns looked up by name on every row.
+     */
+    REFLECTIVE {
+        @Override
+        <T> RowMapper<T> bindColumns(EntityMetadata<T> metadata, ResultSet resultSet) {
+            return new ReflectiveRowMapper<>(metadata);
+        }
+    },
+    /**
+     * Constructor and field setters bound through method handles, columns resolved to indices once.
+     */
+    METHOD_HANDLE {
+        @Override
+        <T> RowMapper<T> bindColumns(EntityMetadata<T> metadata, ResultSet resultSet) throws SQLException {
+            return metadata.getMethodHandleMapper().bind(resultSet);
+        }
+    };
+
+    /**
+     * @return mapper of the current row of {@code resultSet}; {@code @ManyToOne} fields get
+     * id-only references read from their foreign key columns
+     */
+    <T> RowMapper<T> bind(EntityMetadata<T> metadata, ResultSet resultSet) throws SQLException {
+        var columns = bindColumns(metadata, resultSet);
+        if (metadata.getReferences().isEmpty()) {
+            return columns;
+        }
+        return row -> {
+            T object = columns.mapRow(row);
+            metadata.readReferences(row, object);
+            return object;
+        };
+    }
+
+    abstract <T> RowMapper<T> bindColumns(EntityMetadata<T> metadata, ResultSet resultSet) throws SQLException;
+}
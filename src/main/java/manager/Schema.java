@@ -0,0 +1,228 @@
+package manager;
+
+import annotations.GenerationType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * DDL of the entity mappings: the statements that recreate a table and the ones that bring an
+ * existing table up to date with its mapping, found by diffing {@link DatabaseMetaData}
+ * against it. Only additions are derived; columns and indexes that are no longer mapped are
+ * left alone. A declared index exists if an index has its name or its columns, and its
+ * uniqueness. An index that has its name but not its uniqueness is dropped and created again.
+ */
+final class Schema {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private Schema() {
+    }
+
+    /**
+     * @return one command dropping and creating the table of {@code metadata}, and its sequence
+     */
+    static String recreate(EntityMetadata<?> metadata) {
+        StringBuilder command = new StringBuilder("DROP TABLE IF EXISTS ").append(metadata.getTableName())
+                .append("; ").append(createTable(metadata)).append(";");
+        for (IndexMapping index : metadata.getIndexes()) {
+            command.append(" ").append(index.getCreateSql(metadata.getTableName())).append(";");
+        }
+        if (metadata.getIdStrategy() == GenerationType.SEQUENCE) {
+            command.append(" DROP SEQUENCE IF EXISTS ").append(metadata.getSequenceName())
+                    .append("; ").append(createSequence(metadata, 1)).append(";");
+        }
+        return command.toString();
+    }
+
+    /**
+     * @return statements creating what the mapping of {@code metadata} declares but the
+     * database lacks, empty if the schema is up to date
+     */
+    static List<String> changes(Connection connection, EntityMetadata<?> metadata) throws SQLException {
+        List<String> changes = new ArrayList<>();
+        var databaseMetaData = connection.getMetaData();
+        var existing = existingColumns(databaseMetaData, connection.getSchema(), metadata.getTableName());
+        if (existing.isEmpty()) {
+            changes.add(createTable(metadata));
+            metadata.getIndexes().forEach(index -> changes.add(index.getCreateSql(metadata.getTableName())));
+        } else {
+            columnDefinitions(metadata, true).forEach((name, definition) -> {
+                if (!existing.contains(name)) {
+                    changes.add("ALTER TABLE " + metadata.getTableName() + " ADD COLUMN " + definition);
+                }
+            });
+            var indexes = existingIndexes(databaseMetaData, connection.getSchema(), metadata.getTableName());
+            for (IndexMapping index : metadata.getIndexes()) {
+                var named = indexes.get(index.getName());
+                if (named != null && named.isUnique() != index.isUnique()) {
+                    changes.add("DROP INDEX " + index.getName());
+                } else if (named != null || indexes.values().stream().anyMatch(other -> sameColumns(other, index))) {
+                    continue;
+                }
+                changes.add(index.getCreateSql(metadata.getTableName()));
+            }
+        }
+        if (metadata.getIdStrategy() == GenerationType.SEQUENCE && !sequenceExists(connection, metadata.getSequenceName())) {
+            changes.add(createSequence(metadata, existing.isEmpty() ? 1 : nextId(connection, metadata)));
+        }
+        return changes;
+    }
+
+    private static String createTable(EntityMetadata<?> metadata) {
+        StringJoiner columns = new StringJoiner(", ", "CREATE TABLE " + metadata.getTableName() + "(", ")");
+        columnDefinitions(metadata, false).values().forEach(columns::add);
+        return columns.toString();
+    }
+
+    private static String createSequence(EntityMetadata<?> metadata, long start) {
+        return "CREATE SEQUENCE " + metadata.getSequenceName() + " START WITH " + start
+                + " INCREMENT BY " + metadata.getAllocationSize();
+    }
+
+    /**
+     * @param existingRows whether the columns are added to a table that may have rows; their
+     *                     {@code NOT NULL} columns then get a default, which fills those rows
+     * @return definition of every mapped column by name, in table order
+     */
+    private static Map<String, String> columnDefinitions(EntityMetadata<?> metadata, boolean existingRows) {
+        Map<String, String> definitions = new LinkedHashMap<>();
+        for (ColumnMapping column : metadata.getMappedColumns()) {
+            String definition = column.getName() + " " + sqlType(column.getType());
+            if (column.isId()) {
+                definition += metadata.isIdGeneratedByDatabase() ? " PRIMARY KEY AUTO_INCREMENT" : " PRIMARY KEY";
+            } else if (column == metadata.getVersionColumn()) {
+                definition += " DEFAULT 0 NOT NULL";
+            } else if (column.isAllowNull()) {
+                definition += notNull(column.getType(), existingRows);
+            }
+            definitions.put(column.getName(), definition);
+        }
+        for (ColumnMapping column : metadata.getLazyColumns()) {
+            String definition = column.getName() + " " + sqlType(column.getType());
+            definitions.put(column.getName(), column.isAllowNull()
+                    ? definition + notNull(column.getType(), existingRows) : definition);
+        }
+        for (ReferenceMapping reference : metadata.getReferences()) {
+            definitions.put(reference.getName(), reference.getName() + " "
+                    + sqlType(reference.getTarget().getIdColumn().getType()));
+        }
+        return definitions;
+    }
+
+    private static String notNull(Class<?> clazz, boolean existingRows) {
+        return existingRows ? " DEFAULT " + defaultValue(clazz) + " NOT NULL" : " NOT NULL";
+    }
+
+    /**
+     * @return literal of the value that rows existing before a {@code NOT NULL} column of
+     * {@code clazz} was added get: zero, the empty string, the epoch or the nil UUID
+     */
+    private static String defaultValue(Class<?> clazz) {
+        return switch (sqlType(clazz)) {
+            case "BIGINT", "INTEGER" -> "0";
+            case "DATE" -> "DATE '1970-01-01'";
+            case "UUID" -> "'00000000-0000-0000-0000-000000000000'";
+            default -> "''";
+        };
+    }
+
+    private static String sqlType(Class<?> clazz) {
+        return switch (clazz.getSimpleName()) {
+            case "Long", "long" -> "BIGINT";
+            case "Integer", "int" -> "INTEGER";
+            case "String" -> "varchar(250)";
+            case "LocalDate" -> "DATE";
+            case "UUID" -> "UUID";
+            default -> {
+                logger.log(Level.SEVERE,"[Entity Error] Unknown type");
+                throw new IllegalArgumentException("Unknown type");
+            }
+        };
+    }
+
+    /**
+     * @return names of the columns of {@code table}, compared ignoring case; empty if there is no such table
+     */
+    private static Set<String> existingColumns(DatabaseMetaData databaseMetaData, String schema, String table)
+            throws SQLException {
+        Set<String> columns = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        try (ResultSet resultSet = databaseMetaData.getColumns(null, schema, table, null)) {
+            while (resultSet.next()) {
+                columns.add(resultSet.getString("COLUMN_NAME"));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * @return every index of {@code table} by name, with upper-case columns in index order
+     */
+    private static Map<String, IndexMapping> existingIndexes(DatabaseMetaData databaseMetaData, String schema,
+                                                             String table) throws SQLException {
+        Map<String, Map<Integer, String>> positions = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Set<String> unique = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        try (ResultSet resultSet = databaseMetaData.getIndexInfo(null, schema, table, false, false)) {
+            while (resultSet.next()) {
+                String name = resultSet.getString("INDEX_NAME");
+                String column = resultSet.getString("COLUMN_NAME");
+                if (name != null && column != null) {
+                    positions.computeIfAbsent(name, key -> new TreeMap<>())
+                            .put((int) resultSet.getShort("ORDINAL_POSITION"), column.toUpperCase());
+                    if (!resultSet.getBoolean("NON_UNIQUE")) {
+                        unique.add(name);
+                    }
+                }
+            }
+        }
+        Map<String, IndexMapping> indexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        positions.forEach((name, columns) ->
+                indexes.put(name, new IndexMapping(name, List.copyOf(columns.values()), unique.contains(name))));
+        return indexes;
+    }
+
+    private static boolean sameColumns(IndexMapping existing, IndexMapping declared) {
+        return existing.isUnique() == declared.isUnique() && existing.getColumns().equals(upperCase(declared.getColumns()));
+    }
+
+    private static List<String> upperCase(List<String> names) {
+        List<String> result = new ArrayList<>();
+        names.forEach(name -> result.add(name.toUpperCase()));
+        return result;
+    }
+
+    private static boolean sequenceExists(Connection connection, String sequence) throws SQLException {
+        try (var statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = ? AND SEQUENCE_NAME = ?")) {
+            statement.setString(1, connection.getSchema());
+            statement.setString(2, sequence);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getLong(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * @return first id a new sequence may hand out without colliding with existing rows
+     */
+    private static long nextId(Connection connection, EntityMetadata<?> metadata) throws SQLException {
+        var id = metadata.getIdColumn().getName();
+        try (var statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT COALESCE(MAX(" + id + "), 0) + 1 FROM " + metadata.getTableName())) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
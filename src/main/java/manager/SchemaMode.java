@@ -0,0 +1,20 @@
+package manager;
+
+/**
+ * What {@link OrmManager#prepareRepositoryFor} does with the tables of the entities, set by
+ * the {@code orm.schema} property.
+ */
+public enum SchemaMode {
+    /**
+     * Drops and recreates every table, discarding its rows.
+     */
+    CREATE,
+    /**
+     * Creates missing tables, columns and sequences and keeps the rows.
+     */
+    UPDATE,
+    /**
+     * Changes nothing and fails if a table, column or sequence of the mapping is missing.
+     */
+    VALIDATE
+}
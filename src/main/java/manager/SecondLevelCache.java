@@ -0,0 +1,35 @@
+package manager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Regions of the entities marked {@code @Entity(cacheable = true)}, one per class.
+ */
+final class SecondLevelCache {
+    private final Map<Class<?>, EntityCache<?>> regions = new ConcurrentHashMap<>();
+    private final OrmMetrics metrics;
+
+    SecondLevelCache(OrmMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the region of the entity, or {@code null} if it isn't cacheable
+     */
+    @SuppressWarnings("unchecked")
+    <T> EntityCache<T> region(EntityMetadata<T> metadata) {
+        if (!metadata.isCacheable()) {
+            return null;
+        }
+        var region = regions.get(metadata.getType());
+        if (region == null) {
+            region = regions.computeIfAbsent(metadata.getType(), type -> new EntityCache<>(metadata, metrics));
+        }
+        return (EntityCache<T>) region;
+    }
+
+    void clear() {
+        regions.values().forEach(EntityCache::clear);
+    }
+}
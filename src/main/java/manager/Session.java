@@ -0,0 +1,488 @@
+package manager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Unit of work over an {@link OrmManager}. A session borrows one pooled connection on first
+ * use and keeps it until {@link #close()}. It also keeps an identity map keyed by entity class
+ * and id, so every row is represented by a single instance: repeated {@link #getById} calls are
+ * served from memory, and {@link #getAll} returns the managed instance for rows it already knows.
+ * Entities loaded through relations join the identity map as well, and lazy relations of its
+ * entities load on its connection while it is open, seeing the writes of its transaction.
+ * <p>
+ * The session remembers the column values of every managed instance as it was loaded or last
+ * written. {@link #update} and {@link #flush()} compare against that state and write only
+ * the columns that changed; unchanged instances cost no statement at all.
+ * <p>
+ * Outside a transaction every call auto-commits. After {@link #beginTransaction()}, saves,
+ * updates and deletes are queued instead and written by {@link #flush()} or {@link #commit()}:
+ * inserts first, parents before the entities referencing them, then the changed columns of
+ * managed instances, then deletes, children first. Each group of rows sharing an entity class
+ * and a statement is sent as one JDBC batch, and the whole transaction costs a single commit.
+ * <p>
+ * A session is meant for one request or task and must not be shared between threads.
+ */
+public class Session implements AutoCloseable {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final OrmManager manager;
+    private final ManagedEntities identityMap = new ManagedEntities();
+    private final List<Object> pendingInserts = new ArrayList<>();
+    private final Map<EntityKey, Object> pendingDeletes = new LinkedHashMap<>();
+    private final Set<EntityKey> written = new LinkedHashSet<>();
+    private final Map<Object, Object[]> flushedKeys = new IdentityHashMap<>();
+    private PooledConnection connection;
+    private boolean transactional;
+    private boolean autoCommit;
+    private boolean closed;
+
+    Session(OrmManager manager) {
+        this.manager = manager;
+    }
+
+    public <T> Optional<T> getById(Class<T> clazz, Object id) {
+        var metadata = EntityMetadata.of(clazz);
+        var key = new EntityKey(clazz, metadata.getIdColumn().normalize(id));
+        var known = identityMap.get(key);
+        if (known != null) {
+            return Optional.of(clazz.cast(known));
+        }
+        return execute(connection -> manager.getById(connection, metadata, id, identityMap, this::lazyLoad));
+    }
+
+    public <T> List<T> getAll(Class<T> clazz) {
+        var metadata = EntityMetadata.of(clazz);
+        return execute(connection -> manager.getAll(connection, metadata, identityMap, this::lazyLoad));
+    }
+
+    /**
+     * Inserts {@code object} and assigns its id; inside a transaction the insert is queued and
+     * the id is assigned when it is flushed.
+     */
+    public <T> void save(T object) {
+        if (transactional) {
+            pendingInserts.add(object);
+            return;
+        }
+        var metadata = EntityMetadata.of(object);
+        execute(connection -> {
+            manager.save(connection, metadata, object);
+            return null;
+        });
+        identityMap.put(EntityKey.of(metadata, object), object);
+    }
+
+    /**
+     * Writes the changed columns of {@code object}. A managed instance that is unchanged is
+     * skipped; an instance the session doesn't manage has every column written and becomes
+     * managed. Inside a transaction the write is left to the next flush.
+     *
+     * @return number of updated rows, {@code 0} if nothing changed or the write is queued
+     */
+    public <T> int update(T object) {
+        var metadata = EntityMetadata.of(object);
+        var key = EntityKey.of(metadata, object);
+        boolean managed = identityMap.get(key) == object;
+        if (transactional) {
+            if (!managed && key.getId() != null) {
+                identityMap.putDetached(key, object);
+            }
+            return 0;
+        }
+        var state = managed ? identityMap.stateOf(key) : null;
+        int updated;
+        if (state == null) {
+            updated = execute(connection -> manager.update(connection, metadata, object));
+        } else {
+            var dirty = metadata.dirtyColumns(object, state);
+            if (dirty.isEmpty()) {
+                return 0;
+            }
+            updated = execute(connection -> manager.update(connection, metadata, object, dirty));
+        }
+        identityMap.put(key, object);
+        identityMap.markClean(key, object);
+        return updated;
+    }
+
+    /**
+     * Deletes the row of {@code object}; inside a transaction the delete is queued.
+     *
+     * @return number of deleted rows, {@code 0} if the delete is queued
+     */
+    public <T> int delete(T object) {
+        var metadata = EntityMetadata.of(object);
+        if (transactional && pendingInserts.removeIf(pending -> pending == object)) {
+            return 0;
+        }
+        var key = EntityKey.of(metadata, object);
+        identityMap.remove(key);
+        if (transactional) {
+            pendingDeletes.put(key, object);
+            return 0;
+        }
+        return execute(connection -> manager.deleteById(connection, metadata, key.getId()));
+    }
+
+    /**
+     * Writes queued inserts and deletes and the changed columns of every managed instance,
+     * in JDBC batches. Inside a transaction nothing is committed yet.
+     *
+     * @return number of written rows
+     */
+    public int flush() {
+        return execute(connection -> flushInserts(connection) + flushUpdates(connection) + flushDeletes(connection));
+    }
+
+    private int flushInserts(PooledConnection connection) throws SQLException {
+        var byType = groupByType(pendingInserts);
+        pendingInserts.clear();
+        int count = 0;
+        for (var type : dependencyOrder(byType.keySet())) {
+            count += insert(connection, EntityMetadata.of(type), byType.get(type));
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> int insert(PooledConnection connection, EntityMetadata<T> metadata, List<Object> objects)
+            throws SQLException {
+        var batch = (List<T>) objects;
+        batch.forEach(object -> rememberKeys(metadata, object));
+        manager.insertBatch(connection, metadata, batch);
+        for (T object : batch) {
+            var key = EntityKey.of(metadata, object);
+            identityMap.put(key, object);
+            markWritten(key);
+        }
+        return batch.size();
+    }
+
+    private int flushUpdates(PooledConnection connection) throws SQLException {
+        Map<List<Object>, List<Object>> groups = new LinkedHashMap<>();
+        for (var entry : identityMap.entrySet()) {
+            var object = entry.getValue();
+            var dirty = EntityMetadata.of(object).dirtyColumns(object, identityMap.stateOf(entry.getKey()));
+            if (!dirty.isEmpty()) {
+                groups.computeIfAbsent(List.of(object.getClass(), dirty), group -> new ArrayList<>()).add(object);
+            }
+        }
+        int count = 0;
+        for (var group : groups.entrySet()) {
+            var type = (Class<?>) group.getKey().get(0);
+            count += update(connection, EntityMetadata.of(type), (BitSet) group.getKey().get(1), group.getValue());
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> int update(PooledConnection connection, EntityMetadata<T> metadata, BitSet dirty, List<Object> objects)
+            throws SQLException {
+        var batch = (List<T>) objects;
+        batch.forEach(object -> rememberKeys(metadata, object));
+        int updated = manager.updateBatch(connection, metadata, dirty, batch);
+        for (T object : batch) {
+            var key = EntityKey.of(metadata, object);
+            identityMap.markClean(key, object);
+            markWritten(key);
+        }
+        return updated;
+    }
+
+    private int flushDeletes(PooledConnection connection) throws SQLException {
+        Map<Class<?>, List<Object>> byType = new LinkedHashMap<>();
+        for (var key : pendingDeletes.keySet()) {
+            byType.computeIfAbsent(key.getType(), type -> new ArrayList<>()).add(key.getId());
+            markWritten(key);
+        }
+        pendingDeletes.clear();
+        var order = dependencyOrder(byType.keySet());
+        int count = 0;
+        for (int i = order.size() - 1; i >= 0; i--) {
+            count += manager.deleteBatch(connection, EntityMetadata.of(order.get(i)), byType.get(order.get(i)));
+        }
+        return count;
+    }
+
+    private static Map<Class<?>, List<Object>> groupByType(Collection<Object> objects) {
+        Map<Class<?>, List<Object>> byType = new LinkedHashMap<>();
+        for (Object object : objects) {
+            byType.computeIfAbsent(object.getClass(), type -> new ArrayList<>()).add(object);
+        }
+        return byType;
+    }
+
+    /**
+     * @return {@code types} ordered so that the targets of {@code @ManyToOne} references come
+     * before the entities referencing them; cycles keep the order the types were queued in
+     */
+    private static List<Class<?>> dependencyOrder(Collection<Class<?>> types) {
+        List<Class<?>> ordered = new ArrayList<>();
+        Set<Class<?>> visited = new HashSet<>();
+        for (var type : types) {
+            visit(type, types, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private static void visit(Class<?> type, Collection<Class<?>> types, Set<Class<?>> visited, List<Class<?>> ordered) {
+        if (!visited.add(type)) {
+            return;
+        }
+        for (var reference : EntityMetadata.of(type).getReferences()) {
+            var target = reference.getTarget().getType();
+            if (types.contains(target)) {
+                visit(target, types, visited, ordered);
+            }
+        }
+        ordered.add(type);
+    }
+
+    /**
+     * Starts a transaction on this session's connection; see the class description.
+     */
+    public void beginTransaction() {
+        if (transactional) {
+            throw new IllegalStateException("Transaction is already active");
+        }
+        execute(connection -> {
+            autoCommit = connection.getConnection().getAutoCommit();
+            connection.getConnection().setAutoCommit(false);
+            return null;
+        });
+        transactional = true;
+    }
+
+    /**
+     * Flushes the queued writes and commits them. If that fails the transaction is rolled back.
+     */
+    public void commit() {
+        requireTransaction();
+        try {
+            flush();
+            execute(connection -> {
+                connection.getConnection().commit();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        }
+        endTransaction();
+    }
+
+    /**
+     * Discards the queued writes and rolls the transaction back. Managed instances may hold
+     * values that never reached the database, so they are detached as well. Ids and versions
+     * assigned by flushes of the transaction are reset to the values the instances had before.
+     */
+    public void rollback() {
+        requireTransaction();
+        pendingInserts.clear();
+        pendingDeletes.clear();
+        identityMap.clear();
+        flushedKeys.forEach(Session::restoreKeys);
+        flushedKeys.clear();
+        try {
+            execute(connection -> {
+                connection.getConnection().rollback();
+                return null;
+            });
+        } finally {
+            endTransaction();
+        }
+    }
+
+    public boolean isTransactionActive() {
+        return transactional;
+    }
+
+    private void requireTransaction() {
+        if (!transactional) {
+            throw new IllegalStateException("No active transaction");
+        }
+    }
+
+    /**
+     * Restores auto-commit and drops the written rows from the second-level cache: while the
+     * transaction was open, other sessions could cache the values it was about to replace.
+     */
+    private void endTransaction() {
+        transactional = false;
+        flushedKeys.clear();
+        for (var key : written) {
+            evictCached(EntityMetadata.of(key.getType()), key.getId());
+        }
+        written.clear();
+        execute(connection -> {
+            connection.getConnection().setAutoCommit(autoCommit);
+            return null;
+        });
+    }
+
+    private <T> void evictCached(EntityMetadata<T> metadata, Object id) {
+        var region = manager.getCache().region(metadata);
+        if (region != null) {
+            region.evict(id);
+        }
+    }
+
+    /**
+     * Remembers the id and version {@code object} had before a flush of this transaction first
+     * wrote it.
+     */
+    private void rememberKeys(EntityMetadata<?> metadata, Object object) {
+        if (transactional) {
+            flushedKeys.computeIfAbsent(object, key -> new Object[]{metadata.getIdColumn().get(object),
+                    metadata.isVersioned() ? metadata.getVersionColumn().get(object) : null});
+        }
+    }
+
+    private static void restoreKeys(Object object, Object[] keys) {
+        var metadata = EntityMetadata.of(object);
+        metadata.getIdColumn().set(object, keys[0]);
+        if (metadata.isVersioned()) {
+            metadata.getVersionColumn().set(object, keys[1]);
+        }
+    }
+
+    private void markWritten(EntityKey key) {
+        if (transactional) {
+            written.add(key);
+        }
+    }
+
+    /**
+     * @return whether {@code object} is the instance managed by this session
+     */
+    public boolean contains(Object object) {
+        var metadata = EntityMetadata.of(object);
+        return identityMap.get(EntityKey.of(metadata, object)) == object;
+    }
+
+    /**
+     * Detaches {@code object}; the next lookup of its id goes to the database again.
+     */
+    public void evict(Object object) {
+        var metadata = EntityMetadata.of(object);
+        identityMap.remove(EntityKey.of(metadata, object), object);
+    }
+
+    /**
+     * Detaches every managed instance.
+     */
+    public void clear() {
+        identityMap.clear();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (transactional) {
+                rollback();
+            }
+        } finally {
+            closed = true;
+            identityMap.clear();
+            if (connection != null) {
+                connection.close();
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * Identity map that captures the state of every instance it is given, including instances
+     * registered by the {@link RelationLoader} while relations load.
+     */
+    private static final class ManagedEntities extends LinkedHashMap<EntityKey, Object> {
+        private static final long serialVersionUID = 1L;
+        private final Map<EntityKey, Object[]> states = new HashMap<>();
+
+        @Override
+        public Object put(EntityKey key, Object value) {
+            var previous = super.put(key, value);
+            if (previous != value) {
+                markClean(key, value);
+            }
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            states.remove(key);
+            return super.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            if (super.remove(key, value)) {
+                states.remove(key);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            states.clear();
+            super.clear();
+        }
+
+        /**
+         * Registers {@code value} without a captured state, so every column is written on flush.
+         */
+        void putDetached(EntityKey key, Object value) {
+            super.put(key, value);
+            states.remove(key);
+        }
+
+        Object[] stateOf(EntityKey key) {
+            return states.get(key);
+        }
+
+        <T> void markClean(EntityKey key, T object) {
+            states.put(key, EntityMetadata.of(object).captureState(object));
+        }
+    }
+
+    /**
+     * Runs a lazy load of an entity of this session; once the session is closed, it borrows
+     * a connection like the lazy loads of {@link OrmManager}.
+     */
+    private <R> R lazyLoad(OrmManager.SqlFunction<PooledConnection, R> work) {
+        return closed ? manager.withConnection(work) : execute(work);
+    }
+
+    private <R> R execute(OrmManager.SqlFunction<PooledConnection, R> work) {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+        try {
+            if (connection == null) {
+                connection = manager.borrow();
+            }
+            return work.apply(connection);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, () -> "[SQL Error] " + e.getMessage());
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+}
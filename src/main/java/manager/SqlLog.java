@@ -0,0 +1,82 @@
+package manager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Statement log of an {@link OrmManager}, configured with {@code orm.sqlLog}:
+ * <ul>
+ *     <li>{@code SAMPLED} (default) logs one in {@code orm.sqlLog.sampleRate} statements after it
+ *     ran, as a single {@code key=value} line with its duration; meant to stay on in production</li>
+ *     <li>{@code ALL} logs every statement before it runs, as {@code [Executing query] <sql>} at
+ *     INFO; meant for debugging</li>
+ *     <li>{@code OFF} logs nothing</li>
+ * </ul>
+ * Messages are only built for statements that are actually logged.
+ */
+final class SqlLog {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private static final String MODE_KEY = "orm.sqlLog";
+    private static final String SAMPLE_RATE_KEY = "orm.sqlLog.sampleRate";
+    private static final int DEFAULT_SAMPLE_RATE = 100;
+
+    enum Mode {
+        OFF, ALL, SAMPLED
+    }
+
+    private final Mode mode;
+    private final int sampleRate;
+
+    SqlLog(Mode mode, int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be positive");
+        }
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+    }
+
+    static SqlLog fromProperties() {
+        return new SqlLog(Mode.valueOf(PropertiesUtil.get(MODE_KEY, Mode.SAMPLED.name()).trim().toUpperCase()),
+                PropertiesUtil.getInt(SAMPLE_RATE_KEY, DEFAULT_SAMPLE_RATE));
+    }
+
+    /**
+     * Called before {@code sql} runs.
+     */
+    void executing(String sql) {
+        if (mode == Mode.ALL && logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, "[Executing query] " + sql);
+        }
+    }
+
+    void executingBatch(String sql, int size) {
+        if (mode == Mode.ALL && logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, "[Executing batch] " + size + " x " + sql);
+        }
+    }
+
+    /**
+     * Called after {@code sql} ran.
+     *
+     * @param kind statement kind: {@code query}, {@code update} or {@code batch}
+     * @param rows updated or batched rows, {@code -1} if not known
+     */
+    void executed(String kind, String sql, long elapsedNanos, int rows) {
+        if (mode != Mode.SAMPLED || !logger.isLoggable(Level.INFO)
+                || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0)) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(sql.length() + 80)
+                .append("[SQL] kind=").append(kind)
+                .append(" elapsedUs=").append(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        if (rows >= 0) {
+            line.append(" rows=").append(rows);
+        }
+        line.append(" sampleRate=").append(sampleRate)
+                .append(" thread=").append(Thread.currentThread().getName())
+                .append(" sql=\"").append(sql.replace("\"", "\\\"")).append('"');
+        logger.log(Level.INFO, line.toString());
+    }
+}
@@ -0,0 +1,96 @@
+package manager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LRU cache of prepared statements for a single {@link Connection}. The least recently used
+ * statement is closed once the cache grows past its capacity. Like the connection it wraps,
+ * a cache must only be used by one thread at a time; statements handed out are owned by
+ * the cache and must not be closed by the caller.
+ */
+final class StatementCache implements AutoCloseable {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private static final String SIZE_KEY = "orm.statementCacheSize";
+    private static final int DEFAULT_SIZE = 64;
+
+    private final Connection connection;
+    private final Map<String, Entry> statements;
+
+    StatementCache(Connection connection) {
+        this(connection, PropertiesUtil.getInt(SIZE_KEY, DEFAULT_SIZE));
+    }
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > capacity) {
+                    closeQuietly(eldest.getValue().statement);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        var entry = statements.get(sql);
+        if (entry != null && entry.autoGeneratedKeys == autoGeneratedKeys && !entry.statement.isClosed()) {
+            entry.statement.clearParameters();
+            return entry.statement;
+        }
+        if (entry != null) {
+            closeQuietly(entry.statement);
+        }
+        var statement = connection.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(sql, new Entry(statement, autoGeneratedKeys));
+        return statement;
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    @Override
+    public void close() {
+        Iterator<Entry> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            closeQuietly(iterator.next().statement);
+            iterator.remove();
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, () -> "[SQL Error] " + e.getMessage());
+        }
+    }
+
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private final int autoGeneratedKeys;
+
+        private Entry(PreparedStatement statement, int autoGeneratedKeys) {
+            this.statement = statement;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+    }
+}
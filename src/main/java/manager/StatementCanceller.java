@@ -0,0 +1,78 @@
+package manager;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Links one asynchronous operation to the statement it is running, so cancelling the
+ * operation can call {@link Statement#cancel()} from another thread. {@link OrmManager}
+ * registers every statement it executes with the canceller bound to the current thread;
+ * threads without one pay a single {@link ThreadLocal} lookup.
+ * <p>
+ * The handoff is guarded by a lock: {@link #cancel()} calls {@link Statement#cancel()} only
+ * while the statement is still running for this operation, and {@link #finished()} waits for
+ * a cancel in progress. A pooled statement is reused by the next operation on its connection,
+ * which a late cancel would abort instead.
+ */
+final class StatementCanceller {
+    static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private static final ThreadLocal<StatementCanceller> CURRENT = new ThreadLocal<>();
+
+    private final Lock lock = new ReentrantLock();
+    private Statement running;
+    private boolean cancelled;
+
+    static StatementCanceller current() {
+        return CURRENT.get();
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @throws SQLException if the operation was cancelled before {@code statement} could run
+     */
+    void started(Statement statement) throws SQLException {
+        lock.lock();
+        try {
+            if (cancelled) {
+                throw new SQLException("Operation was cancelled");
+            }
+            running = statement;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void finished() {
+        lock.lock();
+        try {
+            running = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            if (running != null) {
+                running.cancel();
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, () -> "[SQL Error] " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package manager;
+
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncOrmManagerTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("async");
+        ormManager.prepareRepositoryFor(Animal.class);
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).execute();
+    }
+
+    @Test
+    @DisplayName("Test Operations Complete Asynchronously")
+    void operations() throws Exception {
+        try (var async = new AsyncOrmManager(ormManager)) {
+            var saved = async.save(new Animal("valera", 33)).get(5, TimeUnit.SECONDS);
+            async.saveAll(List.of(new Animal("rex", 4), new Animal("crock", 27))).get(5, TimeUnit.SECONDS);
+            saved.setAge(34);
+
+            assertEquals(1, async.update(saved).get(5, TimeUnit.SECONDS));
+            assertEquals(34, async.getById(Animal.class, saved.getId()).get(5, TimeUnit.SECONDS).orElseThrow().getAge());
+            assertEquals(4, async.getAll(Animal.class).get(5, TimeUnit.SECONDS).size());
+            assertEquals(0, async.getPendingOperations());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Calls Beyond Max Pending Are Rejected")
+    void backpressure() throws Exception {
+        var executor = Executors.newFixedThreadPool(1);
+        var release = new CountDownLatch(1);
+        try (var async = new AsyncOrmManager(ormManager, executor, 1)) {
+            var blocked = async.submit(orm -> {
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            var rejected = async.getById(Animal.class, 1L);
+
+            var failure = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            release.countDown();
+            assertTrue(blocked.get(5, TimeUnit.SECONDS));
+            assertEquals("alex", async.getById(Animal.class, 1L).get(5, TimeUnit.SECONDS).orElseThrow().getName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test Cancelling A Future Cancels The Running Statement")
+    void cancellation() throws Exception {
+        try (var async = new AsyncOrmManager(ormManager)) {
+            var started = new CountDownLatch(1);
+            var query = async.submit(orm -> orm.withConnection(connection -> {
+                var statement = connection.statements().prepare("SELECT SUM(X) FROM SYSTEM_RANGE(1, 10000000000)");
+                started.countDown();
+                try (var resultSet = orm.executeQuery(statement, "SELECT SUM(X) FROM SYSTEM_RANGE(1, 10000000000)")) {
+                    return resultSet.next();
+                }
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+
+            assertTrue(query.cancel(true));
+
+            assertThrows(CancellationException.class, query::join);
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pool.getBorrowedConnections() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(0, pool.getBorrowedConnections());
+            assertEquals(0, async.getPendingOperations());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package manager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchFetcherTest {
+
+    @Test
+    @DisplayName("Test Values Load While Another Batch Is Being Queried")
+    void queryRunsWithoutTheLock() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var queries = new AtomicInteger();
+        BatchFetcher<String> fetcher = new BatchFetcher<>(2, keys -> {
+            queries.incrementAndGet();
+            if (keys.contains(1)) {
+                started.countDown();
+                await(release);
+            }
+            Map<Object, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, "value" + key));
+            return values;
+        });
+        var first = fetcher.newLazy(1);
+        var second = fetcher.newLazy(2);
+        var third = fetcher.newLazy(3);
+
+        var slow = CompletableFuture.supplyAsync(first::get);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        var waiting = CompletableFuture.supplyAsync(second::get);
+
+        assertEquals("value3", third.get());
+        assertFalse(waiting.isDone());
+        release.countDown();
+        assertEquals("value1", slow.get(5, TimeUnit.SECONDS));
+        assertEquals("value2", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    @DisplayName("Test Values Of A Failed Query Are Loaded On The Next Access")
+    void failedQueryReleasesItsValues() {
+        var fail = new AtomicInteger(1);
+        BatchFetcher<String> fetcher = new BatchFetcher<>(2, keys -> {
+            if (fail.getAndDecrement() > 0) {
+                throw new IllegalStateException("query failed");
+            }
+            Map<Object, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, "value" + key));
+            return values;
+        });
+        var first = fetcher.newLazy(1);
+        var second = fetcher.newLazy(2);
+
+        assertThrows(IllegalStateException.class, first::get);
+
+        assertEquals("value2", second.get());
+        assertTrue(first.isLoaded());
+        assertEquals("value1", first.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package manager;
+
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchWriteTest extends BaseIntegrationTest {
+
+    private List<String> batches;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("batches");
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+        batches = capturedSql("INSERT", "UPDATE", "DELETE");
+    }
+
+    @Test
+    @DisplayName("Test Save All Splits Into Batches And Assigns Ids")
+    void saveAllAssignsIds() {
+        List<Animal> animals = animals(250);
+
+        ormManager.saveAll(animals);
+
+        assertEquals(List.of(100, 100, 50), sizes());
+        assertEquals(LongStream.rangeClosed(1, 250).boxed().collect(Collectors.toList()),
+                animals.stream().map(Animal::getId).collect(Collectors.toList()));
+        assertEquals("animal137", ormManager.getById(Animal.class, 137L).orElseThrow().getName());
+
+        batches.clear();
+        ormManager.saveAll(animals(20), 7);
+        ormManager.saveAll(List.of());
+        assertEquals(List.of(7, 7, 6), sizes());
+        assertEquals(270, ormManager.getAll(Animal.class).size());
+    }
+
+    @Test
+    @DisplayName("Test Update All Writes Every Row Across Batches")
+    void updateAllWritesEveryRow() {
+        List<Animal> animals = animals(250);
+        ormManager.saveAll(animals);
+        batches.clear();
+        animals.forEach(animal -> animal.setAge(animal.getAge() + 1000));
+
+        assertEquals(250, ormManager.updateAll(animals));
+
+        assertEquals(List.of(100, 100, 50), sizes());
+        assertTrue(ormManager.getAll(Animal.class).stream().allMatch(animal -> animal.getAge() > 1000));
+        assertEquals(0, ormManager.updateAll(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> ormManager.updateAll(List.of(animals.get(0), new Zoo("street"))));
+    }
+
+    @Test
+    @DisplayName("Test Delete All By Id Counts Deleted Rows Across Batches")
+    void deleteAllByIdCountsRows() {
+        ormManager.saveAll(animals(250));
+        batches.clear();
+        List<Object> ids = new ArrayList<>(LongStream.rangeClosed(1, 150).boxed().collect(Collectors.toList()));
+        ids.add(151);
+        ids.add(999L);
+
+        assertEquals(151, ormManager.deleteAllById(Animal.class, ids));
+
+        assertEquals(List.of(100, 52), sizes());
+        var left = ormManager.getAll(Animal.class);
+        assertEquals(99, left.size());
+        assertEquals(152L, left.get(0).getId());
+        assertEquals(0, ormManager.deleteAllById(Animal.class, List.of()));
+    }
+
+    private static List<Animal> animals(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(i -> new Animal("animal" + i, i)).collect(Collectors.toList());
+    }
+
+    private List<Integer> sizes() {
+        return batches.stream().map(entry -> Integer.parseInt(entry.split(" ")[0])).collect(Collectors.toList());
+    }
+}
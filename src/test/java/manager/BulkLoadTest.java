@@ -0,0 +1,62 @@
+package manager;
+
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkLoadTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("bulk");
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+    }
+
+    @Test
+    @DisplayName("Test Bulk Load Inserts All Rows In One Statement")
+    void loadsAllRowsInOneStatement() {
+        List<String> inserts = capturedSql("INSERT");
+
+        long loaded = ormManager.bulkLoad(Animal.class,
+                IntStream.rangeClosed(1, 1000).mapToObj(i -> new Animal("animal" + i, i)));
+
+        assertEquals(1000, loaded);
+        assertEquals(1, inserts.size());
+        assertTrue(inserts.get(0).contains("CSVREAD"));
+        var animals = ormManager.getAll(Animal.class);
+        assertEquals(1000, animals.size());
+        assertTrue(animals.stream().anyMatch(animal -> "animal500".equals(animal.getName()) && animal.getAge() == 500));
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+
+    @Test
+    @DisplayName("Test Bulk Load Keeps Nulls, Quotes And References")
+    void keepsValuesAndReferences() {
+        var zoo = new Zoo("Central");
+        ormManager.save(zoo);
+        var quoted = new Animal("say \"hi\", then\nleave", 3);
+        quoted.setZoo(zoo);
+        var empty = new Animal("", 4);
+        var unnamed = new Animal(null, 5);
+
+        assertEquals(3, ormManager.bulkLoad(Animal.class, Stream.of(quoted, empty, unnamed)));
+        assertEquals(0, ormManager.bulkLoad(Animal.class, Stream.empty()));
+
+        var animals = ormManager.find(Animal.class).orderBy("age").list();
+        assertEquals(3, animals.size());
+        assertEquals("say \"hi\", then\nleave", animals.get(0).getName());
+        assertEquals(zoo.getId(), animals.get(0).getZoo().getId());
+        assertEquals("", animals.get(1).getName());
+        assertNull(animals.get(1).getZoo());
+        assertNull(animals.get(2).getName());
+    }
+}
@@ -0,0 +1,66 @@
+package manager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        pool = openPool("test", new PoolConfig(1, 2, 60_000, 200, 0, 1));
+    }
+
+    @Test
+    @DisplayName("Test Returned Connection Is Reused")
+    void reusesReturnedConnection() throws Exception {
+        Connection first;
+        try (var connection = pool.borrow()) {
+            first = connection.getConnection();
+        }
+        try (var connection = pool.borrow()) {
+            assertSame(first, connection.getConnection());
+        }
+        assertEquals(1, pool.getOpenConnections());
+    }
+
+    @Test
+    @DisplayName("Test Borrow Times Out When Pool Is Exhausted")
+    void borrowTimesOut() throws Exception {
+        try (var first = pool.borrow(); var second = pool.borrow()) {
+            assertEquals(2, pool.getBorrowedConnections());
+            assertThrows(SQLTimeoutException.class, () -> pool.borrow());
+        }
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+
+    @Test
+    @DisplayName("Test Transaction State Is Reset On Return")
+    void resetsAutoCommitOnReturn() throws Exception {
+        try (var connection = pool.borrow()) {
+            connection.getConnection().setAutoCommit(false);
+        }
+        try (var connection = pool.borrow()) {
+            assertTrue(connection.getConnection().getAutoCommit());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Closed Connection Is Not Handed Out Again")
+    void discardsClosedConnection() throws Exception {
+        Connection first;
+        try (var connection = pool.borrow()) {
+            first = connection.getConnection();
+            first.close();
+        }
+        try (var connection = pool.borrow()) {
+            assertNotSame(first, connection.getConnection());
+            assertFalse(connection.getConnection().isClosed());
+        }
+    }
+}
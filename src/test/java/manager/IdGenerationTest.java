@@ -0,0 +1,123 @@
+package manager;
+
+import annotations.Column;
+import annotations.Entity;
+import annotations.GenerationType;
+import annotations.Id;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGenerationTest extends BaseIntegrationTest {
+
+    private List<String> executed;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("ids");
+        ormManager.prepareRepositoryFor(Ticket.class);
+        ormManager.prepareRepositoryFor(Badge.class);
+        ormManager.prepareRepositoryFor(Visit.class);
+        executed = capturedSql();
+    }
+
+    @Test
+    @DisplayName("Test Sequence Ids Are Allocated In Blocks")
+    void sequenceIdsAreAllocatedInBlocks() {
+        List<Ticket> tickets = IntStream.rangeClosed(1, 120).mapToObj(i -> new Ticket("t" + i)).collect(Collectors.toList());
+
+        ormManager.saveAll(tickets);
+        var single = new Ticket("single");
+        ormManager.save(single);
+
+        assertEquals(IntStream.rangeClosed(1, 120).mapToObj(Long::valueOf).collect(Collectors.toList()),
+                tickets.stream().map(ticket -> ticket.id).collect(Collectors.toList()));
+        assertEquals(121L, single.id);
+        assertEquals(3, executed.stream().filter(message -> message.contains("NEXT VALUE FOR TICKET_SEQ")).count());
+        assertEquals("t60", ormManager.getById(Ticket.class, 60L).orElseThrow().name);
+        assertEquals(121, ormManager.getAll(Ticket.class).size());
+    }
+
+    @Test
+    @DisplayName("Test Client Generated Ids Are Assigned Before Insert")
+    void clientGeneratedIds() {
+        var first = new Badge("first");
+        var second = new Badge("second");
+        ormManager.saveAll(List.of(first, second));
+        var preset = new Badge("preset");
+        preset.id = UUID.fromString("00000000-0000-7000-8000-000000000001");
+        ormManager.save(preset);
+
+        assertEquals(7, first.id.version());
+        assertNotEquals(first.id, second.id);
+        assertEquals("second", ormManager.getById(Badge.class, second.id).orElseThrow().name);
+        assertEquals("preset", ormManager.getById(Badge.class, preset.id).orElseThrow().name);
+        assertEquals(1, ormManager.deleteById(Badge.class, first.id));
+        assertEquals(2, ormManager.deleteAllById(Badge.class, List.of(second.id, preset.id.toString())));
+        assertTrue(ormManager.getAll(Badge.class).isEmpty());
+
+        List<Visit> visits = IntStream.range(0, 50).mapToObj(i -> new Visit("v" + i)).collect(Collectors.toList());
+        ormManager.inTransaction(session -> visits.forEach(session::save));
+
+        for (int i = 1; i < visits.size(); i++) {
+            assertTrue(visits.get(i).id > visits.get(i - 1).id);
+        }
+        assertEquals(50, ormManager.getAll(Visit.class).size());
+        assertTrue(executed.stream().noneMatch(message -> message.contains("NEXT VALUE FOR")));
+    }
+
+    @Entity
+    static class Ticket {
+        @Id(strategy = GenerationType.SEQUENCE)
+        Long id;
+
+        @Column
+        String name;
+
+        Ticket() {
+        }
+
+        Ticket(String name) {
+            this.name = name;
+        }
+    }
+
+    @Entity
+    static class Badge {
+        @Id(strategy = GenerationType.UUID)
+        UUID id;
+
+        @Column
+        String name;
+
+        Badge() {
+        }
+
+        Badge(String name) {
+            this.name = name;
+        }
+    }
+
+    @Entity
+    static class Visit {
+        @Id(strategy = GenerationType.SNOWFLAKE)
+        Long id;
+
+        @Column
+        String name;
+
+        Visit() {
+        }
+
+        Visit(String name) {
+            this.name = name;
+        }
+    }
+}
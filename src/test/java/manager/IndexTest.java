@@ -0,0 +1,123 @@
+package manager;
+
+import annotations.Column;
+import annotations.Entity;
+import annotations.Id;
+import annotations.Index;
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexTest extends BaseIntegrationTest {
+
+    private List<String> executed;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("index");
+        executed = capturedSql("CREATE", "DROP");
+    }
+
+    @Test
+    @DisplayName("Test Table Creation Creates Declared Indexes")
+    void creationCreatesIndexes() throws SQLException {
+        ormManager.prepareRepositoriesFor(SchemaMode.CREATE, Member.class, Animal.class);
+
+        var indexes = indexes("MEMBER");
+        assertEquals(List.of("EMAIL"), indexes.get("UX_MEMBER_EMAIL"));
+        assertEquals(List.of("LASTNAME", "FIRSTNAME"), indexes.get("IDX_MEMBER_LASTNAME_FIRSTNAME"));
+        assertEquals(List.of("AGE"), indexes("ANIMAL").get("IDX_ANIMAL_AGE"));
+
+        ormManager.save(new Member("a@b.c", "alex", "smith"));
+        assertThrows(RuntimeException.class, () -> ormManager.save(new Member("a@b.c", "alexey", "smith")));
+    }
+
+    @Test
+    @DisplayName("Test Update Mode Creates Only Missing Indexes")
+    void updateCreatesMissingIndexes() throws SQLException {
+        ormManager.prepareRepositoriesFor(SchemaMode.CREATE, Member.class);
+        try (var connection = pool.borrow(); var statement = connection.getConnection().createStatement()) {
+            statement.execute("DROP INDEX IDX_MEMBER_LASTNAME_FIRSTNAME");
+        }
+        executed.clear();
+
+        ormManager.prepareRepositoriesFor(SchemaMode.UPDATE, Member.class);
+        ormManager.prepareRepositoriesFor(SchemaMode.UPDATE, Member.class);
+
+        assertEquals(List.of("CREATE INDEX IDX_MEMBER_LASTNAME_FIRSTNAME ON MEMBER(LASTNAME, FIRSTNAME)"),
+                executed);
+        assertDoesNotThrow(() -> ormManager.prepareRepositoriesFor(SchemaMode.VALIDATE, Member.class));
+    }
+
+    @Test
+    @DisplayName("Test Update Mode Compares Index Uniqueness")
+    void updateComparesUniqueness() throws SQLException {
+        ormManager.prepareRepositoriesFor(SchemaMode.CREATE, Member.class);
+        try (var connection = pool.borrow(); var statement = connection.getConnection().createStatement()) {
+            statement.execute("DROP INDEX UX_MEMBER_EMAIL; CREATE INDEX IDX_EMAIL ON MEMBER(EMAIL);"
+                    + " DROP INDEX IDX_MEMBER_LASTNAME_FIRSTNAME;"
+                    + " CREATE UNIQUE INDEX IDX_MEMBER_LASTNAME_FIRSTNAME ON MEMBER(LASTNAME, FIRSTNAME)");
+        }
+        executed.clear();
+
+        assertThrows(IllegalStateException.class, () -> ormManager.prepareRepositoriesFor(SchemaMode.VALIDATE, Member.class));
+        executed.clear();
+        ormManager.prepareRepositoriesFor(SchemaMode.UPDATE, Member.class);
+
+        assertEquals(List.of("DROP INDEX IDX_MEMBER_LASTNAME_FIRSTNAME",
+                        "CREATE INDEX IDX_MEMBER_LASTNAME_FIRSTNAME ON MEMBER(LASTNAME, FIRSTNAME)",
+                        "CREATE UNIQUE INDEX UX_MEMBER_EMAIL ON MEMBER(EMAIL)"),
+                executed);
+        assertDoesNotThrow(() -> ormManager.prepareRepositoriesFor(SchemaMode.VALIDATE, Member.class));
+        ormManager.save(new Member("a@b.c", "alex", "smith"));
+        ormManager.save(new Member("d@e.f", "alex", "smith"));
+        assertThrows(RuntimeException.class, () -> ormManager.save(new Member("a@b.c", "alexey", "smith")));
+    }
+
+    private Map<String, List<String>> indexes(String table) throws SQLException {
+        Map<String, List<String>> indexes = new TreeMap<>();
+        try (var connection = pool.borrow();
+             var resultSet = connection.getConnection().getMetaData().getIndexInfo(null, null, table, false, false)) {
+            while (resultSet.next()) {
+                indexes.computeIfAbsent(resultSet.getString("INDEX_NAME"), name -> new ArrayList<>())
+                        .add(resultSet.getString("COLUMN_NAME"));
+            }
+        }
+        return indexes;
+    }
+
+    @Entity
+    @Index(columns = {"lastName", "firstName"})
+    static class Member {
+        @Id
+        Long id;
+
+        @Index(name = "ux_member_email", unique = true)
+        @Column
+        String email;
+
+        @Column
+        String firstName;
+
+        @Column
+        String lastName;
+
+        Member() {
+        }
+
+        Member(String email, String firstName, String lastName) {
+            this.email = email;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+}
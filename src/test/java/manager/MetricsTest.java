@@ -0,0 +1,74 @@
+package manager;
+
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest extends BaseIntegrationTest {
+
+    private InMemoryMetrics metrics;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("metrics");
+        metrics = new InMemoryMetrics(0);
+        ormManager = new OrmManager(pool, RowMapperType.METHOD_HANDLE, metrics);
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "dimon").set(field("AGE"), 5).execute();
+        insertInto("ZOO").set(field("ADDRESS"), "Moscow").execute();
+    }
+
+    @Test
+    @DisplayName("Test Operations Rows Batches And Cache Are Recorded")
+    void recordsOperations() {
+        ormManager.getAll(Animal.class);
+        ormManager.getById(Animal.class, 1L);
+        ormManager.getById(Zoo.class, 1L);
+        ormManager.getById(Zoo.class, 1L);
+        ormManager.saveAll(List.of(new Animal("valera", 33), new Animal("rex", 4), new Animal("crock", 27)));
+        assertThrows(RuntimeException.class, () -> ormManager.find(Animal.class).where("age").gt("old").count());
+
+        assertEquals(1, metrics.getCount(OrmMetrics.Operation.GET_ALL));
+        assertEquals(3, metrics.getCount(OrmMetrics.Operation.GET_BY_ID));
+        assertEquals(1, metrics.getFailures(OrmMetrics.Operation.QUERY));
+        assertTrue(metrics.getPercentileMillis(OrmMetrics.Operation.GET_BY_ID, 0.99) > 0);
+        assertEquals(4, metrics.getRowsMapped());
+        assertEquals(1, metrics.getBatches());
+        assertEquals(3.0, metrics.getAverageBatchSize());
+        assertEquals(0.5, metrics.getCacheHitRatio());
+        assertEquals(2 + 6, metrics.getConnectionsAcquired());
+        assertEquals(4, metrics.getSlowQueryCount());
+        assertTrue(metrics.getRecentSlowQueries().get(0).endsWith("SELECT * FROM ANIMAL"));
+    }
+
+    @Test
+    @DisplayName("Test Metrics Are Exported Over JMX")
+    @SuppressWarnings("unchecked")
+    void exportsOverJmx() throws Exception {
+        ObjectName name = JmxMetricsExporter.register("metrics-test", metrics);
+        try {
+            long statements = metrics.getStatements();
+            ormManager.find(Animal.class).where("age").gt(10).list();
+            var server = ManagementFactory.getPlatformMBeanServer();
+
+            assertEquals(1L, server.getAttribute(name, "RowsMapped"));
+            assertEquals(statements + 1, server.getAttribute(name, "Statements"));
+            var counts = (javax.management.openmbean.TabularData) server.getAttribute(name, "OperationCounts");
+            assertEquals(1L, counts.get(new Object[]{"QUERY"}).get("value"));
+        } finally {
+            JmxMetricsExporter.unregister(name);
+        }
+    }
+}
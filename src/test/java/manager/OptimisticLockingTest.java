@@ -0,0 +1,156 @@
+package manager;
+
+import annotations.Column;
+import annotations.Entity;
+import annotations.Id;
+import annotations.Version;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticLockingTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("locking");
+        ormManager.prepareRepositoryFor(Account.class);
+    }
+
+    @Test
+    @DisplayName("Test Stale Update Fails And Keeps The Winning Write")
+    void staleUpdateFails() {
+        var account = new Account("alex");
+        ormManager.save(account);
+        assertEquals(0L, account.version);
+        var stale = ormManager.getById(Account.class, account.id).orElseThrow();
+
+        account.owner = "alexey";
+        assertEquals(1, ormManager.update(account));
+        assertEquals(1L, account.version);
+
+        stale.owner = "dimon";
+        var failure = assertThrows(OptimisticLockException.class, () -> ormManager.update(stale));
+        assertSame(stale, failure.getEntity());
+        assertEquals(0L, stale.version);
+        var stored = ormManager.getById(Account.class, account.id).orElseThrow();
+        assertEquals("alexey", stored.owner);
+        assertEquals(1L, stored.version);
+    }
+
+    @Test
+    @DisplayName("Test Queries Filter On The Version Column")
+    void queriesFilterOnVersion() {
+        var first = new Account("first");
+        var second = new Account("second");
+        ormManager.saveAll(List.of(first, second));
+        second.owner = "second 2";
+        ormManager.update(second);
+
+        var unchanged = ormManager.find(Account.class).where("version").eq(0L).list();
+
+        assertEquals(1, unchanged.size());
+        assertEquals("first", unchanged.get(0).owner);
+        assertEquals(1, ormManager.find(Account.class).where("version").gt(0L).count());
+    }
+
+    @Test
+    @DisplayName("Test Bulk Query Update Increments The Version")
+    void bulkUpdateIncrementsVersion() {
+        var account = new Account("alex");
+        ormManager.save(account);
+
+        assertEquals(1, ormManager.find(Account.class).where("owner").eq("alex").set("owner", "alexey").update());
+
+        account.owner = "dimon";
+        assertThrows(OptimisticLockException.class, () -> ormManager.update(account));
+        var stored = ormManager.getById(Account.class, account.id).orElseThrow();
+        assertEquals("alexey", stored.owner);
+        assertEquals(1L, stored.version);
+    }
+
+    @Test
+    @DisplayName("Test Batched And Session Updates Check The Version")
+    void batchedUpdatesCheckVersion() {
+        var first = new Account("first");
+        var second = new Account("second");
+        ormManager.saveAll(List.of(first, second));
+        var staleSecond = ormManager.getById(Account.class, second.id).orElseThrow();
+
+        first.owner = "first 2";
+        second.owner = "second 2";
+        assertEquals(2, ormManager.updateAll(List.of(first, second)));
+        assertEquals(1L, first.version);
+        assertEquals(1L, second.version);
+
+        staleSecond.owner = "second 3";
+        assertThrows(OptimisticLockException.class, () -> ormManager.updateAll(List.of(staleSecond)));
+
+        try (var session = ormManager.openSession()) {
+            var loaded = session.getById(Account.class, first.id).orElseThrow();
+            first.owner = "first 3";
+            ormManager.update(first);
+            session.beginTransaction();
+            loaded.owner = "lost";
+            assertThrows(OptimisticLockException.class, session::commit);
+        }
+        var stored = ormManager.getById(Account.class, first.id).orElseThrow();
+        assertEquals("first 3", stored.owner);
+        assertEquals(2L, stored.version);
+    }
+
+    @Test
+    @DisplayName("Test Rollback Restores Ids And Versions Assigned By A Failed Flush")
+    void rollbackRestoresFlushedKeys() {
+        var first = new Account("first");
+        var second = new Account("second");
+        ormManager.saveAll(List.of(first, second));
+        var added = new Account("added");
+
+        try (var session = ormManager.openSession()) {
+            session.beginTransaction();
+            var loadedFirst = session.getById(Account.class, first.id).orElseThrow();
+            var loadedSecond = session.getById(Account.class, second.id).orElseThrow();
+            second.owner = "second 2";
+            ormManager.update(second);
+            session.save(added);
+            loadedFirst.owner = "first 2";
+            loadedSecond.balance = 10L;
+
+            assertThrows(OptimisticLockException.class, session::commit);
+
+            assertNull(added.id);
+            assertNull(added.version);
+            assertEquals(0L, loadedFirst.version);
+            assertEquals(0L, loadedSecond.version);
+        }
+        assertEquals(List.of("first", "second 2"), ormManager.getAll(Account.class).stream()
+                .map(account -> account.owner).collect(Collectors.toList()));
+    }
+
+    @Entity
+    static class Account {
+        @Id
+        Long id;
+
+        @Column
+        String owner;
+
+        @Column
+        Long balance;
+
+        @Version
+        Long version;
+
+        Account() {
+        }
+
+        Account(String owner) {
+            this.owner = owner;
+        }
+    }
+}
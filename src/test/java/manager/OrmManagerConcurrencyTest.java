@@ -0,0 +1,57 @@
+package manager;
+
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrmManagerConcurrencyTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("concurrency", 4);
+        ormManager.prepareRepositoryFor(Animal.class);
+    }
+
+    @Test
+    @DisplayName("Test One Manager Shared By Many Threads")
+    void sharedManager() throws Exception {
+        int threads = 16;
+        int perThread = 25;
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<List<Long>>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tasks.add(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        var animal = new Animal("animal-" + thread + "-" + i, i);
+                        ormManager.save(animal);
+                        assertEquals(animal.getName(), ormManager.getById(Animal.class, animal.getId()).orElseThrow().getName());
+                        ids.add(animal.getId());
+                    }
+                    return ids;
+                });
+            }
+            var ids = new HashSet<Long>();
+            for (Future<List<Long>> future : executor.invokeAll(tasks)) {
+                ids.addAll(future.get());
+            }
+            assertEquals(threads * perThread, ids.size());
+            assertEquals(threads * perThread, ormManager.getAll(Animal.class).size());
+            assertEquals(0, pool.getBorrowedConnections());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package manager;
 
 import client.entities.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
@@ -16,6 +17,11 @@ class OrmManagerTest {
 
     OrmManager ormManager = new OrmManager("H2.db");
 
+    @AfterEach
+    void closeManager() {
+        ormManager.close();
+    }
+
     @Test()
     @DisplayName("Test DataBase Creation Failed")
     void getFailedDataBaseCreation() {
@@ -25,7 +31,18 @@ class OrmManagerTest {
     @Test()
     @DisplayName("Test DataBase Creation Successful")
     void getSuccessfulDataBaseCreation() {
-        assertDoesNotThrow(()-> new OrmManager("H2.db"));
+        assertDoesNotThrow(()-> new OrmManager("H2.db").close());
+    }
+
+    @Test
+    @DisplayName("Test Close Releases The Pool Opened For A Database Key")
+    void closeReleasesOwnPool() {
+        var shared = OrmManager.get("H2.db");
+        shared.close();
+
+        assertThrows(RuntimeException.class, () -> shared.getAll(Animal.class));
+        assertNotSame(shared, OrmManager.get("H2.db"));
+        OrmManager.get("H2.db").close();
     }
 
     @Test
@@ -132,6 +149,17 @@ class OrmManagerTest {
         assertEquals(result,expectedResult);
     }
 
+    @Test
+    @DisplayName("Test If 'INSERT INTO ...'Command Escapes Quotes")
+    void insertCommandBuilderEscapesQuotes() {
+        Animal animal = new Animal("O'Brien",20);
+
+        var result = ormManager.insertCommandBuilder(animal);
+
+        var expectedResult = "INSERT INTO ANIMAL(FULLNAME,AGE) VALUES ('O''Brien',20);";
+        assertEquals(result,expectedResult);
+    }
+
     @Test
     @DisplayName("Test Get By Id Function")
     void getById() {
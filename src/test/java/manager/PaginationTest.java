@@ -0,0 +1,127 @@
+package manager;
+
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("pagination");
+        ormManager.prepareRepositoryFor(Animal.class);
+        for (int i = 1; i <= 7; i++) {
+            insertInto("ANIMAL").set(field("FULLNAME"), "animal" + i).set(field("AGE"), i * 10).execute();
+        }
+    }
+
+    @Test
+    @DisplayName("Test Keyset Pages Cover The Table Once")
+    void pages() {
+        List<String> names = new ArrayList<>();
+        int pages = 0;
+        Page<Animal> page = ormManager.getPage(Animal.class, null, 3);
+        while (true) {
+            pages++;
+            page.getItems().forEach(animal -> names.add(animal.getName()));
+            if (!page.hasNext()) {
+                break;
+            }
+            page = ormManager.getPage(Animal.class, page.getNextKey(), 3);
+        }
+
+        assertEquals(3, pages);
+        assertEquals(List.of("animal1", "animal2", "animal3", "animal4", "animal5", "animal6", "animal7"), names);
+        assertTrue(ormManager.getPage(Animal.class, 7L, 3).getItems().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test Keyset Page With Condition")
+    void pageWithCondition() {
+        var page = ormManager.find(Animal.class).where("age").gt(20).or("name").eq("animal1").after(3L).page(2);
+
+        assertEquals(List.of("animal4", "animal5"), page.getItems().stream().map(Animal::getName).collect(Collectors.toList()));
+        assertEquals(5L, page.getNextKey());
+        assertTrue(page.hasNext());
+        assertEquals(4, ormManager.find(Animal.class).where("age").gt(20).after(3L).count());
+        assertThrows(IllegalStateException.class, () -> ormManager.find(Animal.class).orderBy("age").after(1L).page(2));
+    }
+
+    @Test
+    @DisplayName("Test Projection Into Constructor And Fields")
+    void projection() {
+        var rows = ormManager.find(Animal.class).where("age").ge(60).orderBy("id").select(NameAndAge.class, "name", "age");
+        var ids = ormManager.find(Animal.class).where("age").lt(30).orderBy("id").select(IdOnly.class, "id");
+
+        assertEquals(2, rows.size());
+        assertEquals("animal6", rows.get(0).name);
+        assertEquals(70, rows.get(1).age);
+        assertEquals(List.of(1L, 2L), ids.stream().map(row -> row.id).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Test Projection Picks The Constructor Typed Like The Fields")
+    void projectionConstructorChoice() {
+        var rows = ormManager.find(Animal.class).where("age").ge(60).orderBy("id").select(Overloaded.class, "name", "age");
+
+        assertEquals(List.of("animal6:60", "animal7:70"),
+                rows.stream().map(row -> row.name + ":" + row.age).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class,
+                () -> ormManager.find(Animal.class).select(Ambiguous.class, "name", "age"));
+    }
+
+    static final class NameAndAge {
+        private final String name;
+        private final int age;
+
+        NameAndAge(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+    }
+
+    static final class Overloaded {
+        private final String name;
+        private final int age;
+
+        Overloaded(int age, String name) {
+            this(name, age);
+        }
+
+        Overloaded(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        Overloaded(String name, long age) {
+            this(name, (int) age);
+        }
+    }
+
+    static final class Ambiguous {
+        private String name;
+        private int age;
+
+        Ambiguous(String name, String age) {
+        }
+
+        Ambiguous(String name, long age) {
+        }
+    }
+
+    static final class IdOnly {
+        private long id;
+        private String unused;
+
+        IdOnly() {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package manager;
+
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelScanTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("scan", 3);
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+    }
+
+    @Test
+    @DisplayName("Test Every Row Is Scanned Once Across Partitions")
+    void scansEveryRowOnce() {
+        for (int i = 1; i <= 100; i++) {
+            insertInto("ANIMAL").set(field("FULLNAME"), "animal" + i).set(field("AGE"), i).execute();
+        }
+        var names = new ConcurrentLinkedQueue<String>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        ormManager.parallelScan(Animal.class, 7, animal -> {
+            names.add(animal.getName());
+            threads.add(Thread.currentThread().getName());
+        });
+
+        assertEquals(100, names.size());
+        assertEquals(100, new HashSet<>(names).size());
+        assertTrue(threads.size() <= 3);
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+
+    @Test
+    @DisplayName("Test Empty Table And Failing Action")
+    void emptyTableAndFailure() {
+        ormManager.parallelScan(Animal.class, 4, animal -> fail("table is empty"));
+        for (int i = 1; i <= 10; i++) {
+            insertInto("ANIMAL").set(field("FULLNAME"), "animal" + i).set(field("AGE"), i).execute();
+        }
+
+        assertThrows(IllegalStateException.class, () -> ormManager.parallelScan(Animal.class, 4, animal -> {
+            if (animal.getAge() == 7) {
+                throw new IllegalStateException("broken row");
+            }
+        }));
+        assertThrows(IllegalArgumentException.class, () -> ormManager.parallelScan(Animal.class, 0, animal -> { }));
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+
+    @Test
+    @DisplayName("Test Lazy Relations Load On The Chunk's Connection")
+    void lazyRelationsDoNotStarveThePool() {
+        insertInto("ZOO").set(field("ADDRESS"), "street").execute();
+        for (int i = 1; i <= 20; i++) {
+            insertInto("ANIMAL").set(field("FULLNAME"), "animal" + i).set(field("AGE"), i)
+                    .set(field("ZOO_ID"), 1).execute();
+        }
+        var small = openPool("small scan", new PoolConfig(1, 2, 60_000, 5_000, 0, 1));
+        var addresses = new ConcurrentLinkedQueue<String>();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(4), () -> new OrmManager(small)
+                .parallelScan(Animal.class, 4, animal -> addresses.add(animal.getZoo().getAddress())));
+
+        assertEquals(20, addresses.size());
+        assertTrue(addresses.stream().allMatch("street"::equals));
+        assertEquals(0, small.getBorrowedConnections());
+    }
+}
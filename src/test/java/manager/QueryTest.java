@@ -0,0 +1,90 @@
+package manager;
+
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("query");
+        ormManager.prepareRepositoryFor(Animal.class);
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "alexey").set(field("AGE"), 26).execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "dimon").set(field("AGE"), 5).execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "valera").set(field("AGE"), 33).execute();
+    }
+
+    @Test
+    @DisplayName("Test Filtered Ordered And Limited Select")
+    void select() {
+        var animals = ormManager.find(Animal.class).where("age").gt(10).orderByDescending("age").limit(2).list();
+
+        assertEquals(2, animals.size());
+        assertEquals("valera", animals.get(0).getName());
+        assertEquals("alexey", animals.get(1).getName());
+        assertEquals("dimon", ormManager.find(Animal.class).where("Fullname").like("di%").first().orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("Test Count With Or And In Conditions")
+    void count() {
+        assertEquals(2, ormManager.find(Animal.class).where("age").lt(10).or("name").eq("valera").count());
+        assertEquals(3, ormManager.find(Animal.class).where("id").in(List.of(1L, 2L, 4L)).count());
+        assertEquals(0, ormManager.find(Animal.class).where("id").in(List.of()).count());
+        assertEquals(4, ormManager.find(Animal.class).where("zoo").isNull().count());
+    }
+
+    @Test
+    @DisplayName("Test Update And Delete By Condition")
+    void updateAndDelete() {
+        int updated = ormManager.find(Animal.class).where("age").ge(23).and("age").le(26).set("age", 30).update();
+        int deleted = ormManager.find(Animal.class).where("age").eq(30).delete();
+
+        assertEquals(2, updated);
+        assertEquals(2, deleted);
+        assertEquals(List.of("dimon", "valera"), ormManager.find(Animal.class).orderBy("id").list()
+                .stream().map(Animal::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Test Plan Is Compiled Once Per Query Shape")
+    void planCachedByShape() {
+        var metadata = EntityMetadata.of(Animal.class);
+        ormManager.find(Animal.class).where("age").gt(1).and("name").ne("x").list();
+        int plans = metadata.getQueryPlanCount();
+
+        var animals = ormManager.find(Animal.class).where("AGE").gt(25).and("name").ne("valera").list();
+
+        assertEquals(plans, metadata.getQueryPlanCount());
+        assertEquals(1, animals.size());
+        assertEquals("alexey", animals.get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Test Unknown Field Is Rejected")
+    void unknownField() {
+        assertThrows(IllegalArgumentException.class, () -> ormManager.find(Animal.class).where("weight").gt(1).list());
+        assertThrows(IllegalStateException.class, () -> ormManager.find(Animal.class).limit(1).delete());
+    }
+
+    @Test
+    @DisplayName("Test Null Is Rejected By Ordering Comparisons")
+    void nullComparison() {
+        var failure = assertThrows(IllegalArgumentException.class, () -> ormManager.find(Animal.class).where("age").gt(null));
+        assertTrue(failure.getMessage().contains("age"));
+        assertThrows(IllegalArgumentException.class, () -> ormManager.find(Animal.class).where("age").ge(null));
+        assertThrows(IllegalArgumentException.class, () -> ormManager.find(Animal.class).where("age").lt(null));
+        assertThrows(IllegalArgumentException.class, () -> ormManager.find(Animal.class).where("age").le(null));
+        assertThrows(IllegalArgumentException.class, () -> ormManager.find(Animal.class).where("name").like(null));
+        assertEquals(0, ormManager.find(Animal.class).where("name").eq(null).count());
+    }
+}
@@ -0,0 +1,122 @@
+package manager;
+
+import annotations.Column;
+import annotations.Entity;
+import annotations.Id;
+import annotations.ManyToOne;
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelationLoadingTest extends BaseIntegrationTest {
+
+    private List<String> queries;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("relations");
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+        ormManager.prepareRepositoryFor(Keeper.class);
+        for (int zoo = 1; zoo <= 3; zoo++) {
+            insertInto("ZOO").set(field("ADDRESS"), "street " + zoo).execute();
+            insertInto("KEEPER").set(field("NAME"), "keeper " + zoo)
+                    .set(field("NOTES"), "notes " + zoo).set(field("ZOO_ID"), zoo).execute();
+            for (int animal = 0; animal < 4; animal++) {
+                insertInto("ANIMAL").set(field("FULLNAME"), "animal " + zoo + animal)
+                        .set(field("AGE"), animal).set(field("ZOO_ID"), zoo).execute();
+            }
+        }
+        ormManager.clearCache();
+        queries = capturedSql("SELECT");
+    }
+
+    @Test
+    @DisplayName("Test Lazy Animals Of All Zoos Load With One Query On First Access")
+    void oneToManyLoadsInOneQuery() {
+        var zoos = ormManager.getAll(Zoo.class);
+        assertEquals(1, queries.size());
+
+        assertEquals(4, zoos.get(0).getAnimals().size());
+
+        assertEquals(2, queries.size());
+        assertTrue(queries.get(1).contains("WHERE ZOO_ID IN (?,?,?)"));
+        assertEquals(3, zoos.size());
+        for (Zoo zoo : zoos) {
+            assertEquals(4, zoo.getAnimals().size());
+            for (Animal animal : zoo.getAnimals()) {
+                assertSame(zoo, animal.getZoo());
+            }
+        }
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    @DisplayName("Test Lazy Zoos Of All Animals Load With One Query On First Access")
+    void manyToOneLoadsInOneQuery() {
+        var animals = ormManager.getAll(Animal.class);
+        assertEquals(1, queries.size());
+
+        assertEquals("street 1", animals.get(0).getZoo().getAddress());
+
+        assertEquals(2, queries.size());
+        assertEquals(12, animals.size());
+        assertSame(animals.get(0).getZoo(), animals.get(3).getZoo());
+        assertNotSame(animals.get(0).getZoo(), animals.get(4).getZoo());
+        assertEquals("street 3", animals.get(11).getZoo().getAddress());
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    @DisplayName("Test Eager Reference Loads With The Rows And Lazy Column On Access")
+    void eagerReferenceAndLazyColumn() {
+        var keepers = ormManager.getAll(Keeper.class);
+
+        assertEquals(2, queries.size());
+        assertFalse(queries.get(0).contains("NOTES"));
+        assertEquals("street 2", keepers.get(1).zoo.getAddress());
+        assertFalse(keepers.get(0).notes.isLoaded());
+
+        assertEquals("notes 1", keepers.get(0).notes.get());
+        assertEquals("notes 3", keepers.get(2).notes.get());
+
+        assertEquals(3, queries.size());
+        assertTrue(queries.get(2).contains("SELECT ID,NOTES FROM KEEPER WHERE ID IN (?,?,?)"));
+    }
+
+    @Test
+    @DisplayName("Test Saved Reference Is Written As Foreign Key")
+    void saveWritesForeignKey() {
+        var zoo = ormManager.getById(Zoo.class, 2L).orElseThrow();
+        var animal = new Animal("valera", 33);
+        animal.setZoo(zoo);
+
+        ormManager.save(animal);
+
+        var reloaded = ormManager.getById(Zoo.class, 2L).orElseThrow();
+        assertEquals(5, reloaded.getAnimals().size());
+        assertEquals("valera", reloaded.getAnimals().get(4).getName());
+    }
+
+    @Entity
+    static class Keeper {
+        @Id
+        Long id;
+
+        @Column
+        String name;
+
+        @Column(lazy = true, batchSize = 10)
+        Lazy<String> notes;
+
+        @ManyToOne("zoo_id")
+        Zoo zoo;
+    }
+}
@@ -0,0 +1,89 @@
+package manager;
+
+import annotations.Column;
+import annotations.Entity;
+import annotations.Id;
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowMapperTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("mappers");
+        ormManager.prepareRepositoryFor(Sample.class);
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+        insertInto("SAMPLE").set(field("NAME"), "first").set(field("COUNT"), 3).set(field("TOTAL"), 30L)
+                .set(field("BORN"), LocalDate.of(2020, 1, 2))
+                .set(field("TOKEN"), UUID.fromString("00000000-0000-7000-8000-000000000001")).execute();
+        insertInto("SAMPLE").set(field("COUNT"), 0).execute();
+        insertInto("SAMPLE").set(field("NAME"), "third").set(field("COUNT"), -1).set(field("TOTAL"), 0L).execute();
+        insertInto("ZOO").set(field("ADDRESS"), "street").execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).set(field("ZOO_ID"), 1).execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "dimon").set(field("AGE"), 5).execute();
+    }
+
+    @Test
+    @DisplayName("Test Reflective And Method Handle Mappers Return The Same Entities")
+    void mappersReturnSameEntities() {
+        var reflective = load(new OrmManager(pool, RowMapperType.REFLECTIVE));
+        var methodHandle = load(new OrmManager(pool, RowMapperType.METHOD_HANDLE));
+
+        assertEquals(List.of(
+                "1:first:3:30:2020-01-02:00000000-0000-7000-8000-000000000001",
+                "2:null:0:null:null:null",
+                "3:third:-1:0:null:null",
+                "1:first:3:30:2020-01-02:00000000-0000-7000-8000-000000000001",
+                "2:null:0:null:null:null",
+                "1:alex:23:street",
+                "2:dimon:5:null"), reflective);
+        assertEquals(reflective, methodHandle);
+    }
+
+    private static List<String> load(OrmManager ormManager) {
+        List<String> rows = new ArrayList<>();
+        ormManager.getAll(Sample.class).forEach(sample -> rows.add(sample.toString()));
+        ormManager.find(Sample.class).where("count").ge(0).list().forEach(sample -> rows.add(sample.toString()));
+        ormManager.getAll(Animal.class).forEach(animal -> rows.add(animal.getId() + ":" + animal.getName() + ":"
+                + animal.getAge() + ":" + (animal.getZoo() == null ? null : animal.getZoo().getAddress())));
+        return rows;
+    }
+
+    @Entity
+    static class Sample {
+        @Id
+        Long id;
+
+        @Column
+        String name;
+
+        @Column
+        int count;
+
+        @Column
+        Long total;
+
+        @Column
+        LocalDate born;
+
+        @Column
+        UUID token;
+
+        @Override
+        public String toString() {
+            return id + ":" + name + ":" + count + ":" + total + ":" + born + ":" + token;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package manager;
+
+import annotations.Column;
+import annotations.Entity;
+import annotations.GenerationType;
+import annotations.Id;
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigrationTest extends BaseIntegrationTest {
+
+    private List<String> executed;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("schema");
+        ormManager.prepareRepositoriesFor(SchemaMode.CREATE, Animal.class);
+        runSql("DROP TABLE IF EXISTS BADGE; DROP SEQUENCE IF EXISTS BADGE_SEQ");
+        executed = capturedSql();
+    }
+
+    @Test
+    @DisplayName("Test Update Mode Adds Missing Columns And Keeps Rows")
+    void updateAddsMissingColumns() {
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).execute();
+
+        ormManager.prepareRepositoriesFor(SchemaMode.UPDATE, Animal.class, ColoredAnimal.class, Badge.class);
+
+        assertEquals(List.of("ALTER TABLE ANIMAL ADD COLUMN COLOR varchar(250)",
+                        "CREATE TABLE BADGE(ID BIGINT PRIMARY KEY, NAME varchar(250))",
+                        "CREATE SEQUENCE BADGE_SEQ START WITH 1 INCREMENT BY 50"),
+                executed);
+        var animals = ormManager.getAll(ColoredAnimal.class);
+        assertEquals(1, animals.size());
+        assertEquals("alex", animals.get(0).name);
+        assertNull(animals.get(0).color);
+
+        executed.clear();
+        ormManager.prepareRepositoriesFor(SchemaMode.UPDATE, ColoredAnimal.class, Badge.class);
+        assertDoesNotThrow(() -> ormManager.prepareRepositoriesFor(SchemaMode.VALIDATE, ColoredAnimal.class, Badge.class));
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test Validate Mode Fails On Missing Schema And New Sequences Skip Existing Ids")
+    void validateFailsAndSequenceStartsAfterExistingIds() {
+        assertThrows(IllegalStateException.class,
+                () -> ormManager.prepareRepositoriesFor(SchemaMode.VALIDATE, ColoredAnimal.class));
+        assertTrue(executed.isEmpty());
+
+        runSql("CREATE TABLE BADGE(ID BIGINT PRIMARY KEY, NAME varchar(250)); INSERT INTO BADGE VALUES (70, 'old')");
+        ormManager.prepareRepositoriesFor(SchemaMode.UPDATE, Badge.class);
+        var badge = new Badge();
+        ormManager.save(badge);
+
+        assertEquals(71L, badge.id);
+        assertEquals(2, ormManager.getAll(Badge.class).size());
+    }
+
+    @Test
+    @DisplayName("Test Update Mode Adds Not Null Columns To A Populated Table")
+    void updateAddsNotNullColumnsWithDefaults() {
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).execute();
+
+        ormManager.prepareRepositoriesFor(SchemaMode.UPDATE, CountedAnimal.class);
+
+        assertEquals(List.of("ALTER TABLE ANIMAL ADD COLUMN LEGS INTEGER DEFAULT 0 NOT NULL",
+                        "ALTER TABLE ANIMAL ADD COLUMN NICKNAME varchar(250) DEFAULT '' NOT NULL"),
+                executed);
+        var animal = ormManager.getAll(CountedAnimal.class).get(0);
+        assertEquals("alex", animal.name);
+        assertEquals(0, animal.legs);
+        assertEquals("", animal.nickname);
+    }
+
+    private void runSql(String sql) {
+        try (var connection = pool.borrow(); var statement = connection.getConnection().createStatement()) {
+            statement.execute(sql);
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    @Entity("Animal")
+    static class ColoredAnimal {
+        @Id
+        Long id;
+
+        @Column("Fullname")
+        String name;
+
+        @Column
+        String color;
+    }
+
+    @Entity("Animal")
+    static class CountedAnimal {
+        @Id
+        Long id;
+
+        @Column("Fullname")
+        String name;
+
+        @Column(allowNull = true)
+        int legs;
+
+        @Column(allowNull = true)
+        String nickname;
+    }
+
+    @Entity
+    static class Badge {
+        @Id(strategy = GenerationType.SEQUENCE)
+        Long id;
+
+        @Column
+        String name;
+    }
+}
@@ -0,0 +1,113 @@
+package manager;
+
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecondLevelCacheTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("cache");
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+    }
+
+    @Test
+    @DisplayName("Test Cached Row Is Served Without The Database")
+    void servesFromCache() {
+        var zoo = new Zoo("vul.Ceo");
+        ormManager.save(zoo);
+        var first = ormManager.getById(Zoo.class, 1L).orElseThrow();
+        dslContext.deleteFrom(table("ZOO")).execute();
+
+        var second = ormManager.getById(Zoo.class, 1L).orElseThrow();
+        var third = ormManager.getById(Zoo.class, 1).orElseThrow();
+
+        assertNotSame(first, second);
+        assertEquals("vul.Ceo", second.getAddress());
+        assertEquals("vul.Ceo", third.getAddress());
+        assertEquals(2, ormManager.getCacheStatistics(Zoo.class).getHits());
+    }
+
+    @Test
+    @DisplayName("Test Update And Delete Invalidate The Cache")
+    void invalidatesOnWrite() {
+        var zoo = new Zoo("vul.Ceo");
+        ormManager.save(zoo);
+        ormManager.getById(Zoo.class, zoo.getId());
+        zoo.setAddress("vul.Lva");
+        ormManager.update(zoo);
+        assertEquals("vul.Lva", ormManager.getById(Zoo.class, zoo.getId()).orElseThrow().getAddress());
+
+        ormManager.deleteById(Zoo.class, zoo.getId());
+
+        assertTrue(ormManager.getById(Zoo.class, zoo.getId()).isEmpty());
+        assertEquals(3, ormManager.getCacheStatistics(Zoo.class).getMisses());
+    }
+
+    @Test
+    @DisplayName("Test Writes Of An Open Transaction Are Not Cached")
+    void openTransactionIsNotCached() {
+        var zoo = new Zoo("vul.Ceo");
+        ormManager.save(zoo);
+
+        try (var session = ormManager.openSession()) {
+            session.beginTransaction();
+            session.getById(Zoo.class, zoo.getId()).orElseThrow().setAddress("vul.Lva");
+            session.save(new Zoo("vul.Nova"));
+            session.flush();
+
+            assertEquals("vul.Ceo", ormManager.getById(Zoo.class, zoo.getId()).orElseThrow().getAddress());
+            assertTrue(ormManager.getById(Zoo.class, 2L).isEmpty());
+            session.rollback();
+        }
+
+        assertEquals("vul.Ceo", ormManager.getById(Zoo.class, zoo.getId()).orElseThrow().getAddress());
+        assertTrue(ormManager.getById(Zoo.class, 2L).isEmpty());
+        assertEquals(0, ormManager.getCacheStatistics(Zoo.class).getHits());
+    }
+
+    @Test
+    @DisplayName("Test A Row Read Before An Update Is Not Cached After It")
+    void readRacingAnUpdateIsNotCached() {
+        var zoo = new Zoo("vul.Ceo");
+        ormManager.save(zoo);
+        var stale = ormManager.getById(Zoo.class, zoo.getId()).orElseThrow();
+        ormManager.clearCache();
+        var region = ormManager.getCache().region(EntityMetadata.of(Zoo.class));
+        long stamp = region.stamp();
+
+        zoo.setAddress("vul.Lva");
+        ormManager.update(zoo);
+        region.put(stale, stamp);
+
+        assertEquals(0, ormManager.getCacheStatistics(Zoo.class).getSize());
+        assertEquals("vul.Lva", ormManager.getById(Zoo.class, zoo.getId()).orElseThrow().getAddress());
+    }
+
+    @Test
+    @DisplayName("Test Cache Stays Within Its Bound")
+    void evictsBeyondMaxEntries() {
+        List<Zoo> zoos = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            zoos.add(new Zoo("street " + i));
+        }
+        ormManager.saveAll(zoos);
+        ormManager.getAll(Zoo.class);
+
+        var statistics = ormManager.getCacheStatistics(Zoo.class);
+        assertEquals(500, statistics.getSize());
+        assertEquals(100, statistics.getEvictions());
+        assertEquals(1, dslContext.fetchCount(selectFrom("ZOO").where(field("ID_ZOO").eq(600L))));
+    }
+}
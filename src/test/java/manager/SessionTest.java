@@ -0,0 +1,109 @@
+package manager;
+
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTest extends BaseIntegrationTest {
+
+    private List<String> updates;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("session");
+        ormManager.prepareRepositoryFor(Animal.class);
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "dimon").set(field("AGE"), 5).execute();
+        updates = capturedSql("UPDATE");
+    }
+
+    @Test
+    @DisplayName("Test Repeated Get By Id Returns The Managed Instance")
+    void getByIdServedFromIdentityMap() {
+        try (var session = ormManager.openSession()) {
+            var first = session.getById(Animal.class, 1L).orElseThrow();
+            dslContext.deleteFrom(table("ANIMAL")).execute();
+
+            var second = session.getById(Animal.class, 1L).orElseThrow();
+
+            assertSame(first, second);
+            assertSame(first, session.getById(Animal.class, 1).orElseThrow());
+            assertTrue(session.contains(first));
+        }
+    }
+
+    @Test
+    @DisplayName("Test Get All Reuses Managed Instances")
+    void getAllReusesManagedInstances() {
+        try (var session = ormManager.openSession()) {
+            var loaded = session.getById(Animal.class, 2L).orElseThrow();
+            loaded.setAge(99);
+
+            var all = session.getAll(Animal.class);
+
+            assertEquals(2, all.size());
+            assertSame(loaded, all.get(1));
+            assertEquals(99, all.get(1).getAge());
+            assertSame(all.get(0), session.getById(Animal.class, 1L).orElseThrow());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Saved Instance Is Managed And Evict Detaches It")
+    void saveRegistersAndEvictDetaches() {
+        try (var session = ormManager.openSession()) {
+            var animal = new Animal("valera", 33);
+            session.save(animal);
+            assertSame(animal, session.getById(Animal.class, animal.getId()).orElseThrow());
+
+            session.evict(animal);
+
+            var reloaded = session.getById(Animal.class, animal.getId()).orElseThrow();
+            assertNotSame(animal, reloaded);
+            assertEquals("valera", reloaded.getName());
+        }
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+
+    @Test
+    @DisplayName("Test Update Writes Only Changed Columns")
+    void updateWritesChangedColumns() {
+        try (var session = ormManager.openSession()) {
+            var animal = session.getById(Animal.class, 1L).orElseThrow();
+
+            assertEquals(0, session.update(animal));
+            assertTrue(updates.isEmpty());
+
+            animal.setAge(24);
+            assertEquals(1, session.update(animal));
+            assertEquals(0, session.update(animal));
+
+            assertEquals(List.of("UPDATE ANIMAL SET AGE=? WHERE ID=?"), updates);
+        }
+        assertEquals(24, ormManager.getById(Animal.class, 1L).orElseThrow().getAge());
+    }
+
+    @Test
+    @DisplayName("Test Flush Skips Unchanged Instances")
+    void flushWritesDirtyInstances() {
+        try (var session = ormManager.openSession()) {
+            var all = session.getAll(Animal.class);
+            all.get(1).setName("dmitry");
+
+            assertEquals(1, session.flush());
+            assertEquals(0, session.flush());
+
+            assertEquals(List.of("1 x UPDATE ANIMAL SET FULLNAME=? WHERE ID=?"), updates);
+        }
+        var reloaded = ormManager.getAll(Animal.class);
+        assertEquals("alex", reloaded.get(0).getName());
+        assertEquals("dmitry", reloaded.get(1).getName());
+    }
+}
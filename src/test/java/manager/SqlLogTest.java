@@ -0,0 +1,83 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlLogTest {
+
+    private final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private final List<String> lines = new ArrayList<>();
+    private final Handler capture = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            lines.add(record.getMessage());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private Level level;
+
+    @BeforeEach
+    void addHandler() {
+        level = logger.getLevel();
+        logger.addHandler(capture);
+    }
+
+    @AfterEach
+    void removeHandler() {
+        logger.removeHandler(capture);
+        logger.setLevel(level);
+    }
+
+    @Test
+    @DisplayName("Test All Mode Logs Every Statement Before It Runs")
+    void allMode() {
+        var log = new SqlLog(SqlLog.Mode.ALL, 1);
+        log.executing("SELECT 1");
+        log.executingBatch("INSERT INTO T VALUES (?)", 3);
+        log.executed("query", "SELECT 1", 1_000, -1);
+
+        assertEquals(List.of("[Executing query] SELECT 1", "[Executing batch] 3 x INSERT INTO T VALUES (?)"), lines);
+    }
+
+    @Test
+    @DisplayName("Test Sampled Mode Writes Structured Lines")
+    void sampledMode() {
+        var log = new SqlLog(SqlLog.Mode.SAMPLED, 1);
+        log.executing("UPDATE T SET A=?");
+        log.executed("update", "UPDATE T SET A=\"x\"", 12_345, 2);
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("[SQL] kind=update elapsedUs=12 rows=2 sampleRate=1 thread="));
+        assertTrue(lines.get(0).endsWith(" sql=\"UPDATE T SET A=\\\"x\\\"\""));
+    }
+
+    @Test
+    @DisplayName("Test Nothing Is Logged When Off Or Below The Logger Level")
+    void disabled() {
+        new SqlLog(SqlLog.Mode.OFF, 1).executing("SELECT 1");
+        logger.setLevel(Level.WARNING);
+        new SqlLog(SqlLog.Mode.ALL, 1).executing("SELECT 1");
+        new SqlLog(SqlLog.Mode.SAMPLED, 1).executed("query", "SELECT 1", 1, -1);
+
+        assertTrue(lines.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new SqlLog(SqlLog.Mode.SAMPLED, 0));
+    }
+}
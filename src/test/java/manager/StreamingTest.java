@@ -0,0 +1,44 @@
+package manager;
+
+import client.entities.Animal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTest extends BaseIntegrationTest {
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("stream");
+        ormManager.prepareRepositoryFor(Animal.class);
+        List<Animal> animals = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            animals.add(new Animal("animal " + i, i % 50));
+        }
+        ormManager.saveAll(animals);
+    }
+
+    @Test
+    @DisplayName("Test Stream Reads Every Row And Releases The Connection")
+    void streamsAllRows() {
+        try (var stream = ormManager.stream(Animal.class, 64)) {
+            assertEquals(20, stream.filter(animal -> animal.getAge() == 7).count());
+        }
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+
+    @Test
+    @DisplayName("Test Closing A Partially Read Iterator Releases The Connection")
+    void closesPartiallyReadIterator() {
+        try (var iterator = ormManager.iterate(Animal.class)) {
+            assertEquals("animal 0", iterator.next().getName());
+            assertEquals(1, pool.getBorrowedConnections());
+        }
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+}
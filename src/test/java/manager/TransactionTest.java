@@ -0,0 +1,120 @@
+package manager;
+
+import client.entities.Animal;
+import client.entities.Zoo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import orm.testsupport.BaseIntegrationTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionTest extends BaseIntegrationTest {
+
+    private List<String> statements;
+
+    @Override
+    protected void beforeTestMethod() {
+        connect("transaction");
+        ormManager.prepareRepositoryFor(Zoo.class);
+        ormManager.prepareRepositoryFor(Animal.class);
+        insertInto("ANIMAL").set(field("FULLNAME"), "alex").set(field("AGE"), 23).execute();
+        insertInto("ANIMAL").set(field("FULLNAME"), "dimon").set(field("AGE"), 5).execute();
+        statements = capturedSql("INSERT", "UPDATE", "DELETE");
+    }
+
+    @Test
+    @DisplayName("Test Commit Writes Queued Operations In Batches")
+    void commitBatchesQueuedWrites() {
+        ormManager.inTransaction(session -> {
+            session.save(new Animal("valera", 33));
+            session.save(new Animal("crock", 27));
+            session.save(new Animal("rex", 4));
+            var animals = session.getAll(Animal.class);
+            animals.get(0).setAge(24);
+            animals.get(1).setAge(6);
+            session.delete(animals.get(1));
+            assertTrue(statements.isEmpty());
+        });
+
+        assertEquals(List.of(
+                "3 x INSERT INTO ANIMAL(FULLNAME,AGE,ZOO_ID) VALUES (?,?,?)",
+                "1 x UPDATE ANIMAL SET AGE=? WHERE ID=?",
+                "1 x DELETE FROM ANIMAL WHERE ID=?"), statements);
+        assertEquals(List.of("alex:24", "valera:33", "crock:27", "rex:4"), ormManager.getAll(Animal.class).stream()
+                .map(animal -> animal.getName() + ":" + animal.getAge()).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Test Referenced Entities Are Inserted First")
+    void insertsInDependencyOrder() {
+        var animal = new Animal("valera", 33);
+        var zoo = new Zoo("Moscow");
+        animal.setZoo(zoo);
+
+        ormManager.inTransaction(session -> {
+            session.save(animal);
+            session.save(zoo);
+        });
+
+        assertTrue(statements.get(0).contains("INSERT INTO ZOO"));
+        assertNotNull(zoo.getId());
+        var loaded = ormManager.getById(Animal.class, animal.getId()).orElseThrow();
+        assertEquals("Moscow", loaded.getZoo().getAddress());
+    }
+
+    @Test
+    @DisplayName("Test Failure Rolls Back The Transaction")
+    void rollbackOnFailure() {
+        assertThrows(IllegalStateException.class, () -> ormManager.inTransaction(session -> {
+            session.save(new Animal("valera", 33));
+            session.getById(Animal.class, 1L).orElseThrow().setName("changed");
+            session.flush();
+            throw new IllegalStateException("failure");
+        }));
+
+        assertEquals(List.of("alex", "dimon"), ormManager.getAll(Animal.class).stream()
+                .map(Animal::getName).collect(Collectors.toList()));
+        assertEquals(0, pool.getBorrowedConnections());
+    }
+
+    @Test
+    @DisplayName("Test Rollback Detaches Managed Instances")
+    void rollbackDetaches() {
+        try (var session = ormManager.openSession()) {
+            session.beginTransaction();
+            var animal = session.getById(Animal.class, 2L).orElseThrow();
+            animal.setAge(50);
+
+            session.rollback();
+
+            assertFalse(session.isTransactionActive());
+            assertFalse(session.contains(animal));
+            assertEquals(5, session.getById(Animal.class, 2L).orElseThrow().getAge());
+            assertThrows(IllegalStateException.class, session::commit);
+        }
+    }
+
+    @Test
+    @DisplayName("Test Lazy Relations Load On The Session's Connection")
+    void lazyLoadsSeeUncommittedWrites() {
+        var animal = new Animal("valera", 33);
+        var zoo = new Zoo("Moscow");
+        animal.setZoo(zoo);
+
+        ormManager.inTransaction(session -> {
+            session.save(zoo);
+            session.save(animal);
+            session.flush();
+            session.clear();
+
+            var loaded = session.getById(Zoo.class, zoo.getId()).orElseThrow();
+
+            assertEquals(List.of("valera"), loaded.getAnimals().stream().map(Animal::getName).collect(Collectors.toList()));
+            assertEquals(1, pool.getBorrowedConnections());
+        });
+    }
+}
@@ -1,5 +1,11 @@
 package orm.testsupport;
 
+import manager.ConnectionPool;
+import manager.OrmManager;
+import manager.OrmMetrics;
+import manager.PoolConfig;
+import manager.PropertiesUtil;
+import manager.RowMapperType;
 import org.h2.jdbcx.JdbcDataSource;
 import org.jooq.CreateTableColumnStep;
 import org.jooq.DSLContext;
@@ -11,6 +17,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.sql.DataSource;
 
@@ -22,6 +32,21 @@ import static org.jooq.impl.DSL.table;
 public abstract class BaseIntegrationTest {
     protected DataSource dataSource;
     protected DSLContext dslContext;
+    protected ConnectionPool pool;
+    protected OrmManager ormManager;
+    private final List<ConnectionPool> pools = new ArrayList<>();
+    private final List<SqlCapture> captures = new CopyOnWriteArrayList<>();
+    private final OrmMetrics statementListener = new OrmMetrics() {
+        @Override
+        public void statementExecuted(String sql, long elapsedNanos) {
+            captures.forEach(capture -> capture.accept(sql, sql));
+        }
+
+        @Override
+        public void batchExecuted(String sql, int size, long elapsedNanos) {
+            captures.forEach(capture -> capture.accept(sql, size + " x " + sql));
+        }
+    };
 
     /**
      * Method that gets executed before each test method.
@@ -43,8 +68,17 @@ public abstract class BaseIntegrationTest {
 
     @AfterEach
     public final void after() throws SQLException {
-        shutdownDatabase();
-        afterTestMethod();
+        try {
+            shutdownDatabase();
+            afterTestMethod();
+        } finally {
+            captures.clear();
+            if (ormManager != null) {
+                ormManager.close();
+            }
+            pools.forEach(ConnectionPool::close);
+            pools.clear();
+        }
     }
 
     private void createDatabase() {
@@ -65,6 +99,49 @@ public abstract class BaseIntegrationTest {
         }
     }
 
+    /**
+     * Supportive method. Opens {@link #pool}, holding up to two connections to the test database,
+     * and {@link #ormManager} over it. Both are closed after the test method, and the statements
+     * of the manager can be recorded with {@link #capturedSql(String...)}.
+     */
+    protected final void connect(String name) {
+        connect(name, 2);
+    }
+
+    /**
+     * Supportive method. Like {@link #connect(String)}, with up to {@code maxSize} connections.
+     */
+    protected final void connect(String name, int maxSize) {
+        pool = openPool(name, new PoolConfig(1, maxSize, 60_000, 5_000, 0, 1));
+        RowMapperType rowMapperType = RowMapperType.valueOf(PropertiesUtil.get("orm.rowMapper", RowMapperType.METHOD_HANDLE.name()));
+        ormManager = new OrmManager(pool, rowMapperType, statementListener);
+    }
+
+    /**
+     * Supportive method. Records the statements {@link #ormManager} runs from now on whose SQL
+     * starts with one of {@code prefixes}, or all of them if none is given: a single statement
+     * as its SQL, a JDBC batch as {@code <rows> x <sql>}. Clear the list to start over.
+     */
+    protected final List<String> capturedSql(String... prefixes) {
+        List<String> captured = Collections.synchronizedList(new ArrayList<>());
+        captures.add((sql, entry) -> {
+            if (prefixes.length == 0 || List.of(prefixes).stream().anyMatch(sql::startsWith)) {
+                captured.add(entry);
+            }
+        });
+        return captured;
+    }
+
+    /**
+     * Supportive method. Opens a pool of connections to the test database that is closed after
+     * the test method, for tests that need a second pool or one configured differently.
+     */
+    protected final ConnectionPool openPool(String name, PoolConfig config) {
+        var opened = new ConnectionPool(name, dataSource::getConnection, config);
+        pools.add(opened);
+        return opened;
+    }
+
     /**
      * Supportive method. Can be used to create tables in {@link #beforeTestMethod()}.
      * Refer to the JOOQ documentation on how to create tables. An example:
@@ -116,4 +193,9 @@ public abstract class BaseIntegrationTest {
     protected final InsertSetStep<?> insertInto(String tableName) {
         return dslContext.insertInto(table(tableName));
     }
+
+    @FunctionalInterface
+    private interface SqlCapture {
+        void accept(String sql, String entry);
+    }
 }